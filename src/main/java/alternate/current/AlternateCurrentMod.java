@@ -17,6 +17,59 @@ public class AlternateCurrentMod implements ModInitializer {
 	public static final boolean DEBUG = false;
 	
 	public static boolean on = true;
+	/**
+	 * If true, wire updates that happen outside of ongoing power
+	 * changes are collected and carried out at the end of the tick.
+	 */
+	public static boolean coalesceUpdates = false;
+	/**
+	 * If true, wires that are placed, broken or updated during piston
+	 * moves and explosions are collected and updated once the move or
+	 * explosion is done. This changes when those wires update relative
+	 * to other blocks.
+	 */
+	public static boolean batchMoves = false;
+	/**
+	 * If true, networks are compiled into a compact form that allows
+	 * power changes to be found from their distances to power sources.
+	 * Power changes in compiled networks are carried out in order of
+	 * decreasing power level rather than following the flow of power.
+	 */
+	public static boolean compileNetworks = false;
+	/**
+	 * If true, wires at the edge of a network that are held at their
+	 * power level by other wires are not checked for power from
+	 * non-wire components. This mostly speeds up updates where power
+	 * is removed.
+	 */
+	public static boolean decrementalUpdates = false;
+	/**
+	 * If true, the checks for extra roots around updated wires are
+	 * turned off in regions where they rarely find any. Whether an
+	 * update finds those roots then depends on earlier updates in
+	 * that region.
+	 */
+	public static boolean adaptiveScans = false;
+	/**
+	 * If true, large networks that lie flat and fill most of the
+	 * rectangle around them are solved on a grid. Like in compiled
+	 * networks, power changes are then carried out in order of
+	 * decreasing power level.
+	 */
+	public static boolean solveGrids = false;
+	/**
+	 * If true, compiled networks with many entries are labeled on
+	 * multiple threads. This only affects how long compiling takes,
+	 * not the result.
+	 */
+	public static boolean parallelCompile = false;
+	/**
+	 * The time in microseconds that power changes may take before the
+	 * rest of them is paused until the next tick, or 0 for no limit.
+	 * Updates that happen while power changes are paused are merged
+	 * into the paused power changes and carried out with them.
+	 */
+	public static int sliceBudget = 0;
 	
 	@Override
 	public void onInitialize() {
@@ -1,14 +1,21 @@
 package alternate.current.command;
 
+import java.util.ArrayList;
+
 import com.mojang.brigadier.Command;
 import com.mojang.brigadier.CommandDispatcher;
+import com.mojang.brigadier.arguments.IntegerArgumentType;
 import com.mojang.brigadier.builder.LiteralArgumentBuilder;
 
 import alternate.current.AlternateCurrentMod;
+import alternate.current.interfaces.mixin.IServerWorld;
+import alternate.current.redstone.WireHandler;
+import alternate.current.redstone.WorldAccess;
 import alternate.current.util.profiler.ProfilerResults;
 
 import net.minecraft.server.command.CommandManager;
 import net.minecraft.server.command.ServerCommandSource;
+import net.minecraft.server.world.ServerWorld;
 import net.minecraft.text.LiteralText;
 
 public class AlternateCurrentCommand {
@@ -24,6 +31,67 @@ public class AlternateCurrentCommand {
 			then(CommandManager.
 				literal("off").
 				executes(context -> toggle(context.getSource(), false))).
+			then(CommandManager.
+				literal("coalesce").
+				then(CommandManager.
+					literal("on").
+					executes(context -> toggleCoalesce(context.getSource(), true))).
+				then(CommandManager.
+					literal("off").
+					executes(context -> toggleCoalesce(context.getSource(), false)))).
+			then(CommandManager.
+				literal("batch").
+				then(CommandManager.
+					literal("on").
+					executes(context -> toggleBatch(context.getSource(), true))).
+				then(CommandManager.
+					literal("off").
+					executes(context -> toggleBatch(context.getSource(), false)))).
+			then(CommandManager.
+				literal("compile").
+				then(CommandManager.
+					literal("on").
+					executes(context -> toggleCompile(context.getSource(), true))).
+				then(CommandManager.
+					literal("off").
+					executes(context -> toggleCompile(context.getSource(), false)))).
+			then(CommandManager.
+				literal("decremental").
+				then(CommandManager.
+					literal("on").
+					executes(context -> toggleDecremental(context.getSource(), true))).
+				then(CommandManager.
+					literal("off").
+					executes(context -> toggleDecremental(context.getSource(), false)))).
+			then(CommandManager.
+				literal("adaptive").
+				then(CommandManager.
+					literal("on").
+					executes(context -> toggleAdaptive(context.getSource(), true))).
+				then(CommandManager.
+					literal("off").
+					executes(context -> toggleAdaptive(context.getSource(), false)))).
+			then(CommandManager.
+				literal("grid").
+				then(CommandManager.
+					literal("on").
+					executes(context -> toggleGrid(context.getSource(), true))).
+				then(CommandManager.
+					literal("off").
+					executes(context -> toggleGrid(context.getSource(), false)))).
+			then(CommandManager.
+				literal("parallel").
+				then(CommandManager.
+					literal("on").
+					executes(context -> toggleParallel(context.getSource(), true))).
+				then(CommandManager.
+					literal("off").
+					executes(context -> toggleParallel(context.getSource(), false)))).
+			then(CommandManager.
+				literal("budget").
+				then(CommandManager.
+					argument("microseconds", IntegerArgumentType.integer(0)).
+					executes(context -> setSliceBudget(context.getSource(), IntegerArgumentType.getInteger(context, "microseconds"))))).
 			then(CommandManager.
 				literal("resetProfiler").
 				requires(source -> AlternateCurrentMod.DEBUG).
@@ -36,18 +104,211 @@ public class AlternateCurrentCommand {
 		String state = AlternateCurrentMod.on ? "enabled" : "disabled";
 		source.sendFeedback(new LiteralText(String.format("Alternate Current is currently %s", state)), false);
 		
+		String coalesce = AlternateCurrentMod.coalesceUpdates ? "enabled" : "disabled";
+		source.sendFeedback(new LiteralText(String.format("Update coalescing is currently %s", coalesce)), false);
+		
+		String batch = AlternateCurrentMod.batchMoves ? "enabled" : "disabled";
+		source.sendFeedback(new LiteralText(String.format("Batching of piston moves and explosions is currently %s", batch)), false);
+		
+		String compile = AlternateCurrentMod.compileNetworks ? "enabled" : "disabled";
+		source.sendFeedback(new LiteralText(String.format("Network compilation is currently %s", compile)), false);
+		
+		String decremental = AlternateCurrentMod.decrementalUpdates ? "enabled" : "disabled";
+		source.sendFeedback(new LiteralText(String.format("Decremental updates are currently %s", decremental)), false);
+		
+		String adaptive = AlternateCurrentMod.adaptiveScans ? "enabled" : "disabled";
+		source.sendFeedback(new LiteralText(String.format("Adaptive root checks are currently %s", adaptive)), false);
+		
+		String grid = AlternateCurrentMod.solveGrids ? "enabled" : "disabled";
+		source.sendFeedback(new LiteralText(String.format("Grid solving is currently %s", grid)), false);
+		
+		String parallel = AlternateCurrentMod.parallelCompile ? "enabled" : "disabled";
+		source.sendFeedback(new LiteralText(String.format("Parallel compilation is currently %s", parallel)), false);
+		
+		if (AlternateCurrentMod.sliceBudget > 0) {
+			source.sendFeedback(new LiteralText(String.format("Power changes are paused after %d µs", AlternateCurrentMod.sliceBudget)), false);
+		}
+		
+		long coalescedUpdates = 0;
+		long coalescedSolves = 0;
+		long neighborScans = 0;
+		long neighborScanHits = 0;
+		long neighborScansSkipped = 0;
+		int disabledScanRegions = 0;
+		long powerChecks = 0;
+		long skippedPowerChecks = 0;
+		long sourcelessPowerChecks = 0;
+		long powerOffUpdates = 0;
+		long powerOffTime = 0;
+		long gridSolves = 0;
+		long pausedUpdates = 0;
+		long resumedSlices = 0;
+		long isolatedUpdates = 0;
+		long isolatedTime = 0;
+		long classifiedLookups = 0;
+		long unclassifiedLookups = 0;
+		long cachedConnectionMasks = 0;
+		long foundConnectionMasks = 0;
+		
+		for (WorldAccess worldAccess : ((IServerWorld)source.getWorld()).getAccesses()) {
+			WireHandler wireHandler = worldAccess.getWireHandler();
+			
+			coalescedUpdates += wireHandler.getCoalescedUpdates();
+			coalescedSolves += wireHandler.getCoalescedSolves();
+			neighborScans += wireHandler.getNeighborScans();
+			neighborScanHits += wireHandler.getNeighborScanHits();
+			neighborScansSkipped += wireHandler.getNeighborScansSkipped();
+			disabledScanRegions += wireHandler.getDisabledScanRegions();
+			powerChecks += wireHandler.getPowerChecks();
+			skippedPowerChecks += wireHandler.getSkippedPowerChecks();
+			sourcelessPowerChecks += wireHandler.getSourcelessPowerChecks();
+			powerOffUpdates += wireHandler.getPowerOffUpdates();
+			powerOffTime += wireHandler.getPowerOffTime();
+			gridSolves += wireHandler.getGridSolves();
+			pausedUpdates += wireHandler.getPausedUpdates();
+			resumedSlices += wireHandler.getResumedSlices();
+			isolatedUpdates += wireHandler.getIsolatedUpdates();
+			isolatedTime += wireHandler.getIsolatedTime();
+			classifiedLookups += worldAccess.getClassifiedLookups();
+			unclassifiedLookups += worldAccess.getUnclassifiedLookups();
+			cachedConnectionMasks += wireHandler.getCachedConnectionMasks();
+			foundConnectionMasks += wireHandler.getFoundConnectionMasks();
+		}
+		
+		if (coalescedUpdates > 0) {
+			source.sendFeedback(new LiteralText(String.format("%d coalesced wire updates led to power changes (%d solves saved)", coalescedUpdates, coalescedSolves)), false);
+		}
+		if (neighborScans > 0 || neighborScansSkipped > 0) {
+			source.sendFeedback(new LiteralText(String.format("Neighbor root checks: %d done, %d found extra roots, %d skipped (turned off in %d regions)", neighborScans, neighborScanHits, neighborScansSkipped, disabledScanRegions)), false);
+		}
+		if (gridSolves > 0) {
+			source.sendFeedback(new LiteralText(String.format("%d network updates were solved on a grid", gridSolves)), false);
+		}
+		if (classifiedLookups > 0 || unclassifiedLookups > 0) {
+			source.sendFeedback(new LiteralText(String.format("Block classification: %d lookups, %.1f%% already classified", classifiedLookups + unclassifiedLookups, 100.0D * classifiedLookups / (classifiedLookups + unclassifiedLookups))), false);
+		}
+		if (cachedConnectionMasks > 0 || foundConnectionMasks > 0) {
+			source.sendFeedback(new LiteralText(String.format("Weak power queries against wires: %d used a cached shape, %d had to find it", cachedConnectionMasks, foundConnectionMasks)), false);
+		}
+		if (isolatedUpdates > 0) {
+			source.sendFeedback(new LiteralText(String.format("Isolated wire updates: %d, taking %.1f µs on average", isolatedUpdates, isolatedTime / (1000.0D * isolatedUpdates))), false);
+		}
+		if (pausedUpdates > 0) {
+			source.sendFeedback(new LiteralText(String.format("Power changes ran out of time %d times and were resumed in %d later ticks", pausedUpdates, resumedSlices)), false);
+		}
+		if (powerOffUpdates > 0) {
+			source.sendFeedback(new LiteralText(String.format("Power-off updates: %d, taking %.1f µs on average", powerOffUpdates, powerOffTime / (1000.0D * powerOffUpdates))), false);
+		}
+		if (powerChecks > 0 || skippedPowerChecks > 0) {
+			source.sendFeedback(new LiteralText(String.format("External power checks: %d done (%d without power sources nearby), %d skipped", powerChecks, sourcelessPowerChecks, skippedPowerChecks)), false);
+		}
+		
 		return Command.SINGLE_SUCCESS;
 	}
 	
 	private static int toggle(ServerCommandSource source, boolean on) {
 		AlternateCurrentMod.on = on;
 		
+		// Power changes that were paused would otherwise keep the
+		// wire handlers busy while Vanilla handles the wires.
+		if (!on) {
+			for (ServerWorld world : source.getServer().getWorlds()) {
+				for (WorldAccess worldAccess : new ArrayList<>(((IServerWorld)world).getAccesses())) {
+					worldAccess.getWireHandler().finishPowerChanges();
+				}
+			}
+		}
+		
 		String state = AlternateCurrentMod.on ? "enabled" : "disabled";
 		source.sendFeedback(new LiteralText(String.format("Alternate Current has been %s!", state)), true);
 		
 		return Command.SINGLE_SUCCESS;
 	}
 	
+	private static int toggleCoalesce(ServerCommandSource source, boolean on) {
+		AlternateCurrentMod.coalesceUpdates = on;
+		
+		String state = AlternateCurrentMod.coalesceUpdates ? "enabled" : "disabled";
+		source.sendFeedback(new LiteralText(String.format("Update coalescing has been %s!", state)), true);
+		
+		return Command.SINGLE_SUCCESS;
+	}
+	
+	private static int toggleBatch(ServerCommandSource source, boolean on) {
+		AlternateCurrentMod.batchMoves = on;
+		
+		String state = AlternateCurrentMod.batchMoves ? "enabled" : "disabled";
+		source.sendFeedback(new LiteralText(String.format("Batching of piston moves and explosions has been %s!", state)), true);
+		
+		return Command.SINGLE_SUCCESS;
+	}
+	
+	private static int toggleCompile(ServerCommandSource source, boolean on) {
+		AlternateCurrentMod.compileNetworks = on;
+		
+		String state = AlternateCurrentMod.compileNetworks ? "enabled" : "disabled";
+		source.sendFeedback(new LiteralText(String.format("Network compilation has been %s!", state)), true);
+		
+		return Command.SINGLE_SUCCESS;
+	}
+	
+	private static int toggleDecremental(ServerCommandSource source, boolean on) {
+		AlternateCurrentMod.decrementalUpdates = on;
+		
+		// Measurements are kept separately for each algorithm, so
+		// that they can be compared. Queries can come from any world,
+		// so the measurements of all worlds are reset.
+		for (ServerWorld world : source.getServer().getWorlds()) {
+			for (WorldAccess worldAccess : ((IServerWorld)world).getAccesses()) {
+				worldAccess.getWireHandler().resetPowerOffStats();
+			}
+		}
+		
+		String state = AlternateCurrentMod.decrementalUpdates ? "enabled" : "disabled";
+		source.sendFeedback(new LiteralText(String.format("Decremental updates have been %s!", state)), true);
+		
+		return Command.SINGLE_SUCCESS;
+	}
+	
+	private static int toggleAdaptive(ServerCommandSource source, boolean on) {
+		AlternateCurrentMod.adaptiveScans = on;
+		
+		String state = AlternateCurrentMod.adaptiveScans ? "enabled" : "disabled";
+		source.sendFeedback(new LiteralText(String.format("Adaptive root checks have been %s!", state)), true);
+		
+		return Command.SINGLE_SUCCESS;
+	}
+	
+	private static int toggleGrid(ServerCommandSource source, boolean on) {
+		AlternateCurrentMod.solveGrids = on;
+		
+		String state = AlternateCurrentMod.solveGrids ? "enabled" : "disabled";
+		source.sendFeedback(new LiteralText(String.format("Grid solving has been %s!", state)), true);
+		
+		return Command.SINGLE_SUCCESS;
+	}
+	
+	private static int toggleParallel(ServerCommandSource source, boolean on) {
+		AlternateCurrentMod.parallelCompile = on;
+		
+		String state = AlternateCurrentMod.parallelCompile ? "enabled" : "disabled";
+		source.sendFeedback(new LiteralText(String.format("Parallel compilation has been %s!", state)), true);
+		
+		return Command.SINGLE_SUCCESS;
+	}
+	
+	private static int setSliceBudget(ServerCommandSource source, int budget) {
+		AlternateCurrentMod.sliceBudget = budget;
+		
+		if (budget > 0) {
+			source.sendFeedback(new LiteralText(String.format("Power changes will be paused after %d µs!", budget)), true);
+		} else {
+			source.sendFeedback(new LiteralText("Power changes will no longer be paused!"), true);
+		}
+		
+		return Command.SINGLE_SUCCESS;
+	}
+	
 	private static int resetProfiler(ServerCommandSource source) {
 		source.sendFeedback(new LiteralText("profiler results have been cleared!"), true);
 		
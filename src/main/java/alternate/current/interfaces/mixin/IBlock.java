@@ -1,5 +1,7 @@
 package alternate.current.interfaces.mixin;
 
+import alternate.current.redstone.WireHandler.Directions;
+
 import net.minecraft.block.BlockState;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.Direction;
@@ -7,6 +9,16 @@ import net.minecraft.world.World;
 
 public interface IBlock {
 	
+	/**
+	 * Return true if the methods below depend on more than just the
+	 * block state. By default, their results are worked out once for
+	 * each block state and looked up from then on, in which case
+	 * they are called with a {@code null} world and position.
+	 */
+	default boolean usesWorldForPowerEmission() {
+		return false;
+	}
+	
 	default boolean emitsWeakPowerTo(World world, BlockPos pos, BlockState state, Direction dir) {
 		return false;
 	}
@@ -14,4 +26,29 @@ public interface IBlock {
 	default boolean emitsStrongPowerTo(World world, BlockPos pos, BlockState state, Direction dir) {
 		return false;
 	}
+	
+	/**
+	 * Describe in which directions this redstone component can power
+	 * its neighbors. This is used to find all the wires a component
+	 * powers, either directly or through conductors, when its power
+	 * output changes.
+	 * 
+	 * @return a bit mask in which bit {@code i} is set if the neighbor
+	 * in the direction {@code Directions.ALL[i]} can be powered.
+	 */
+	default int getPowerFanOut(World world, BlockPos pos, BlockState state) {
+		int fanOut = 0;
+		
+		for (int iDir = 0; iDir < Directions.ALL.length; iDir++) {
+			// Directions are backwards in Minecraft, so we must check
+			// for power emitted in the opposite direction.
+			Direction opp = Directions.ALL[Directions.iOpposite(iDir)];
+			
+			if (emitsWeakPowerTo(world, pos, state, opp) || emitsStrongPowerTo(world, pos, state, opp)) {
+				fanOut |= 1 << iDir;
+			}
+		}
+		
+		return fanOut;
+	}
 }
@@ -0,0 +1,49 @@
+package alternate.current.interfaces.mixin;
+
+import net.minecraft.block.BlockState;
+
+public interface IBlockState {
+	
+	/** Set for block states that have been classified. */
+	public static final int CLASSIFIED = 0b01;
+	/** Set for block states that emit redstone power. */
+	public static final int EMITTER    = 0b10;
+	
+	/**
+	 * Return flags that classify this block state for the wire
+	 * handler, or 0 if it has not been classified yet.
+	 */
+	public int getClassification();
+	
+	/**
+	 * Classify this block state, if it has not been already.
+	 */
+	public int classify();
+	
+	/**
+	 * Return the power level of this wire block state, if power
+	 * tables were built for its block.
+	 */
+	public int getWirePower();
+	
+	/**
+	 * Return the block states that only differ from this wire block
+	 * state in power level, indexed by power level, or {@code null}
+	 * if no power tables were built for its block.
+	 */
+	public BlockState[] getWirePowerStates();
+	
+	public void setWirePower(int power, BlockState[] powerStates);
+	
+	/**
+	 * Return the directions in which this block state emits power,
+	 * as described by the {@link IBlock} methods of its block. Bits
+	 * 0-5 hold the directions in which it emits weak power and bits
+	 * 6-11 the directions in which it emits strong power, indexed by
+	 * {@code Direction.getId()}. Bits 12-17 hold its power fan-out.
+	 * If any of these depend on more than the block state, -1 is
+	 * returned instead.
+	 */
+	public int getPowerEmission();
+	
+}
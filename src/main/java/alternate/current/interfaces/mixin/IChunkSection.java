@@ -0,0 +1,11 @@
+package alternate.current.interfaces.mixin;
+
+public interface IChunkSection {
+	
+	/**
+	 * Return the number of times a block state was set in this
+	 * chunk section.
+	 */
+	public int getModCount();
+	
+}
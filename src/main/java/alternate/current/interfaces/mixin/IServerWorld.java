@@ -1,10 +1,28 @@
 package alternate.current.interfaces.mixin;
 
+import java.util.Collection;
+
 import alternate.current.redstone.WireBlock;
 import alternate.current.redstone.WorldAccess;
 
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockState;
+import net.minecraft.util.math.BlockPos;
+
 public interface IServerWorld {
 	
 	public WorldAccess getAccess(WireBlock wireBlock);
 	
+	public Collection<WorldAccess> getAccesses();
+	
+	public void onBlockStateChanged(BlockPos pos, BlockState prevState, BlockState state);
+	
+	public void beginEmitterUpdate(BlockPos pos, Block block);
+	
+	public void endEmitterUpdate();
+	
+	public void beginBatch();
+	
+	public void endBatch();
+	
 }
@@ -0,0 +1,32 @@
+package alternate.current.mixin;
+
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
+
+import alternate.current.interfaces.mixin.IChunkSection;
+
+import net.minecraft.block.BlockState;
+import net.minecraft.world.chunk.ChunkSection;
+
+@Mixin(ChunkSection.class)
+public class ChunkSectionMixin implements IChunkSection {
+	
+	private int modCount;
+	
+	@Inject(
+			method = "setBlockState(IIILnet/minecraft/block/BlockState;Z)Lnet/minecraft/block/BlockState;",
+			at = @At(
+					value = "HEAD"
+			)
+	)
+	private void onSetBlockState(int x, int y, int z, BlockState state, boolean lock, CallbackInfoReturnable<BlockState> cir) {
+		modCount++;
+	}
+	
+	@Override
+	public int getModCount() {
+		return modCount;
+	}
+}
@@ -0,0 +1,40 @@
+package alternate.current.mixin;
+
+import java.util.function.Predicate;
+
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Coerce;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
+
+import alternate.current.interfaces.mixin.IServerWorld;
+
+import net.minecraft.block.pattern.CachedBlockPosition;
+import net.minecraft.server.command.CloneCommand;
+import net.minecraft.server.command.ServerCommandSource;
+import net.minecraft.util.math.BlockPos;
+
+@Mixin(CloneCommand.class)
+public class CloneCommandMixin {
+	
+	@Inject(
+			method = "execute",
+			at = @At(
+					value = "HEAD"
+			)
+	)
+	private static void onExecuteStart(ServerCommandSource source, BlockPos begin, BlockPos end, BlockPos destination, Predicate<CachedBlockPosition> filter, @Coerce Object mode, CallbackInfoReturnable<Integer> cir) {
+		((IServerWorld)source.getWorld()).beginBatch();
+	}
+	
+	@Inject(
+			method = "execute",
+			at = @At(
+					value = "RETURN"
+			)
+	)
+	private static void onExecuteEnd(ServerCommandSource source, BlockPos begin, BlockPos end, BlockPos destination, Predicate<CachedBlockPosition> filter, @Coerce Object mode, CallbackInfoReturnable<Integer> cir) {
+		((IServerWorld)source.getWorld()).endBatch();
+	}
+}
@@ -0,0 +1,44 @@
+package alternate.current.mixin;
+
+import org.spongepowered.asm.mixin.Final;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Shadow;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+import alternate.current.AlternateCurrentMod;
+import alternate.current.interfaces.mixin.IServerWorld;
+
+import net.minecraft.world.World;
+import net.minecraft.world.explosion.Explosion;
+
+@Mixin(Explosion.class)
+public class ExplosionMixin {
+	
+	@Shadow @Final private World world;
+	
+	@Inject(
+			method = "affectWorld",
+			at = @At(
+					value = "HEAD"
+			)
+	)
+	private void onAffectWorldStart(boolean particles, CallbackInfo ci) {
+		if (AlternateCurrentMod.batchMoves && !world.isClient()) {
+			((IServerWorld)world).beginBatch();
+		}
+	}
+	
+	@Inject(
+			method = "affectWorld",
+			at = @At(
+					value = "RETURN"
+			)
+	)
+	private void onAffectWorldEnd(boolean particles, CallbackInfo ci) {
+		if (AlternateCurrentMod.batchMoves && !world.isClient()) {
+			((IServerWorld)world).endBatch();
+		}
+	}
+}
@@ -0,0 +1,41 @@
+package alternate.current.mixin;
+
+import java.util.function.Predicate;
+
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Coerce;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
+
+import alternate.current.interfaces.mixin.IServerWorld;
+
+import net.minecraft.block.pattern.CachedBlockPosition;
+import net.minecraft.command.argument.BlockStateArgument;
+import net.minecraft.server.command.FillCommand;
+import net.minecraft.server.command.ServerCommandSource;
+import net.minecraft.util.math.BlockBox;
+
+@Mixin(FillCommand.class)
+public class FillCommandMixin {
+	
+	@Inject(
+			method = "execute",
+			at = @At(
+					value = "HEAD"
+			)
+	)
+	private static void onExecuteStart(ServerCommandSource source, BlockBox range, BlockStateArgument block, @Coerce Object mode, Predicate<CachedBlockPosition> filter, CallbackInfoReturnable<Integer> cir) {
+		((IServerWorld)source.getWorld()).beginBatch();
+	}
+	
+	@Inject(
+			method = "execute",
+			at = @At(
+					value = "RETURN"
+			)
+	)
+	private static void onExecuteEnd(ServerCommandSource source, BlockBox range, BlockStateArgument block, @Coerce Object mode, Predicate<CachedBlockPosition> filter, CallbackInfoReturnable<Integer> cir) {
+		((IServerWorld)source.getWorld()).endBatch();
+	}
+}
@@ -1,10 +1,12 @@
 package alternate.current.mixin;
 
 import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Shadow;
 import org.spongepowered.asm.mixin.injection.At;
 import org.spongepowered.asm.mixin.injection.At.Shift;
 import org.spongepowered.asm.mixin.injection.Inject;
 import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
 
 import alternate.current.AlternateCurrentMod;
 import alternate.current.interfaces.mixin.IServerWorld;
@@ -15,16 +17,38 @@ import alternate.current.redstone.WireHandler.NodeProvider;
 import alternate.current.redstone.WireNode;
 import alternate.current.redstone.WorldAccess;
 
+import net.minecraft.block.AbstractBlock;
 import net.minecraft.block.Block;
 import net.minecraft.block.BlockState;
 import net.minecraft.block.RedstoneWireBlock;
+import net.minecraft.server.world.ServerWorld;
 import net.minecraft.state.property.Properties;
 import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Direction;
+import net.minecraft.world.BlockView;
 import net.minecraft.world.World;
 
 @Mixin(RedstoneWireBlock.class)
 public abstract class RedstoneWireBlockMixin implements WireBlock {
 	
+	@Shadow
+	private boolean wiresGivePower;
+	
+	@Shadow
+	private BlockState getPlacementState(BlockView world, BlockState state, BlockPos pos) {
+		return null;
+	}
+	
+	@Inject(
+			method = "<init>",
+			at = @At(
+					value = "TAIL"
+			)
+	)
+	private void onInit(AbstractBlock.Settings settings, CallbackInfo ci) {
+		buildPowerTables(Properties.POWER);
+	}
+	
 	@Inject(
 			method = "update",
 			cancellable = true,
@@ -81,6 +105,23 @@ public abstract class RedstoneWireBlockMixin implements WireBlock {
 		}
 	}
 	
+	@Inject(
+			method = "getWeakRedstonePower",
+			cancellable = true,
+			at = @At(
+					value = "HEAD"
+			)
+	)
+	private void onGetWeakRedstonePower(BlockState state, BlockView world, BlockPos pos, Direction dir, CallbackInfoReturnable<Integer> cir) {
+		// Blocks next to wires query their power all the time, and
+		// Vanilla works out the shape of the wire each time to do
+		// so. The wire handler keeps that shape cached instead.
+		if (AlternateCurrentMod.on && wiresGivePower && world instanceof ServerWorld) {
+			WireHandler wireHandler = ((IServerWorld)world).getAccess(this).getWireHandler();
+			cir.setReturnValue(wireHandler.getWeakPowerFrom(pos, state, dir));
+		}
+	}
+	
 	@Inject(
 			method = "neighborUpdate",
 			cancellable = true,
@@ -91,7 +132,7 @@ public abstract class RedstoneWireBlockMixin implements WireBlock {
 	private void onNeighborUpdate(BlockState state, World world, BlockPos pos, Block block, BlockPos fromPos, boolean notify, CallbackInfo ci) {
 		if (AlternateCurrentMod.on) {
 			if (!world.isClient()) {
-				((IServerWorld)world).getAccess(this).getWireHandler().onWireUpdated(pos);
+				((IServerWorld)world).getAccess(this).getWireHandler().onWireUpdated(pos, fromPos, block);
 			}
 			
 			ci.cancel();
@@ -115,12 +156,28 @@ public abstract class RedstoneWireBlockMixin implements WireBlock {
 	
 	@Override
 	public int getPower(WorldAccess world, BlockPos pos, BlockState state) {
-		return state.get(Properties.POWER);
+		return getTablePower(state);
 	}
 	
 	@Override
 	public BlockState updatePowerState(WorldAccess world, BlockPos pos, BlockState state, int power) {
-		return state.with(Properties.POWER, power);
+		return getTablePowerState(state, power);
+	}
+	
+	@Override
+	public int findConnectionMask(WorldAccess world, BlockPos pos, BlockState state) {
+		BlockState placementState = getPlacementState(world.getWorld(), state, pos);
+		int mask = 0;
+		
+		for (int iDir = 0; iDir < WireHandler.Directions.HORIZONTAL.length; iDir++) {
+			Direction dir = WireHandler.Directions.HORIZONTAL[iDir];
+			
+			if (placementState.get(RedstoneWireBlock.DIRECTION_TO_WIRE_CONNECTION_PROPERTY.get(dir)).isConnected()) {
+				mask |= (1 << iDir);
+			}
+		}
+		
+		return mask;
 	}
 	
 	@Override
@@ -1,23 +1,120 @@
 package alternate.current.mixin;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.function.BooleanSupplier;
 
 import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
 
 import alternate.current.interfaces.mixin.IServerWorld;
 import alternate.current.redstone.WireBlock;
+import alternate.current.redstone.WireHandler;
 import alternate.current.redstone.WorldAccess;
 
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockState;
 import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.world.chunk.WorldChunk;
 
 @Mixin(ServerWorld.class)
 public class ServerWorldMixin implements IServerWorld {
 	
 	private final Map<WireBlock, WorldAccess> access = new HashMap<>();
 	
+	@Inject(
+			method = "tick",
+			at = @At(
+					value = "HEAD"
+			)
+	)
+	private void onTickStart(BooleanSupplier shouldKeepTicking, CallbackInfo ci) {
+		// Power changes and neighbor updates can reach other wire
+		// types, which adds to the map of world accesses, so these
+		// loops go over a copy of it.
+		for (WorldAccess worldAccess : new ArrayList<>(access.values())) {
+			worldAccess.getWireHandler().resumePowerChanges();
+		}
+	}
+	
+	@Inject(
+			method = "tick",
+			at = @At(
+					value = "TAIL"
+			)
+	)
+	private void onTick(BooleanSupplier shouldKeepTicking, CallbackInfo ci) {
+		for (WorldAccess worldAccess : new ArrayList<>(access.values())) {
+			WireHandler wireHandler = worldAccess.getWireHandler();
+			
+			wireHandler.endBatches();
+			wireHandler.clearEmitterUpdates();
+			wireHandler.flushUpdates();
+		}
+	}
+	
+	@Inject(
+			method = "unloadEntities",
+			at = @At(
+					value = "HEAD"
+			)
+	)
+	private void onUnloadChunk(WorldChunk chunk, CallbackInfo ci) {
+		ChunkPos pos = chunk.getPos();
+		
+		for (WorldAccess worldAccess : access.values()) {
+			worldAccess.getWireHandler().onChunkUnloaded(pos.x, pos.z);
+		}
+	}
+	
 	@Override
 	public WorldAccess getAccess(WireBlock wireBlock) {
 		return access.computeIfAbsent(wireBlock, key -> new WorldAccess(wireBlock, (ServerWorld)(Object)this));
 	}
+	
+	@Override
+	public Collection<WorldAccess> getAccesses() {
+		return access.values();
+	}
+	
+	@Override
+	public void onBlockStateChanged(BlockPos pos, BlockState prevState, BlockState state) {
+		for (WorldAccess worldAccess : access.values()) {
+			worldAccess.getWireHandler().onBlockChanged(pos, prevState, state);
+		}
+	}
+	
+	@Override
+	public void beginEmitterUpdate(BlockPos pos, Block block) {
+		for (WorldAccess worldAccess : access.values()) {
+			worldAccess.getWireHandler().beginEmitterUpdate(pos, block);
+		}
+	}
+	
+	@Override
+	public void endEmitterUpdate() {
+		for (WorldAccess worldAccess : access.values()) {
+			worldAccess.getWireHandler().endEmitterUpdate();
+		}
+	}
+	
+	@Override
+	public void beginBatch() {
+		for (WorldAccess worldAccess : access.values()) {
+			worldAccess.getWireHandler().beginBatch();
+		}
+	}
+	
+	@Override
+	public void endBatch() {
+		for (WorldAccess worldAccess : new ArrayList<>(access.values())) {
+			worldAccess.getWireHandler().endBatch();
+		}
+	}
 }
@@ -0,0 +1,46 @@
+package alternate.current.mixin;
+
+import java.util.Random;
+
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
+
+import alternate.current.interfaces.mixin.IServerWorld;
+
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.structure.Structure;
+import net.minecraft.structure.StructurePlacementData;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.ServerWorldAccess;
+
+@Mixin(Structure.class)
+public class StructureMixin {
+	
+	@Inject(
+			method = "place(Lnet/minecraft/world/ServerWorldAccess;Lnet/minecraft/util/math/BlockPos;Lnet/minecraft/util/math/BlockPos;Lnet/minecraft/structure/StructurePlacementData;Ljava/util/Random;I)Z",
+			at = @At(
+					value = "HEAD"
+			)
+	)
+	private void onPlaceStart(ServerWorldAccess world, BlockPos pos, BlockPos pivot, StructurePlacementData placementData, Random random, int flags, CallbackInfoReturnable<Boolean> cir) {
+		// Structures are also placed during world generation, off the
+		// server thread, in which case there is nothing to batch.
+		if (world instanceof ServerWorld) {
+			((IServerWorld)world).beginBatch();
+		}
+	}
+	
+	@Inject(
+			method = "place(Lnet/minecraft/world/ServerWorldAccess;Lnet/minecraft/util/math/BlockPos;Lnet/minecraft/util/math/BlockPos;Lnet/minecraft/structure/StructurePlacementData;Ljava/util/Random;I)Z",
+			at = @At(
+					value = "RETURN"
+			)
+	)
+	private void onPlaceEnd(ServerWorldAccess world, BlockPos pos, BlockPos pivot, StructurePlacementData placementData, Random random, int flags, CallbackInfoReturnable<Boolean> cir) {
+		if (world instanceof ServerWorld) {
+			((IServerWorld)world).endBatch();
+		}
+	}
+}
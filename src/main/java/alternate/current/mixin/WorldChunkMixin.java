@@ -0,0 +1,36 @@
+package alternate.current.mixin;
+
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
+
+import alternate.current.interfaces.mixin.IServerWorld;
+
+import net.minecraft.block.BlockState;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.World;
+import net.minecraft.world.chunk.WorldChunk;
+
+@Mixin(WorldChunk.class)
+public class WorldChunkMixin {
+	
+	@Inject(
+			method = "setBlockState",
+			at = @At(
+					value = "RETURN"
+			)
+	)
+	private void onSetBlockState(BlockPos pos, BlockState state, boolean moved, CallbackInfoReturnable<BlockState> cir) {
+		BlockState prevState = cir.getReturnValue();
+		
+		// If the previous state is null, nothing has changed.
+		if (prevState != null) {
+			World world = ((WorldChunk)(Object)this).getWorld();
+			
+			if (!world.isClient()) {
+				((IServerWorld)world).onBlockStateChanged(pos, prevState, state);
+			}
+		}
+	}
+}
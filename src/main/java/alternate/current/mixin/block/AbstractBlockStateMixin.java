@@ -0,0 +1,106 @@
+package alternate.current.mixin.block;
+
+import org.spongepowered.asm.mixin.Mixin;
+
+import alternate.current.interfaces.mixin.IBlock;
+import alternate.current.interfaces.mixin.IBlockState;
+import alternate.current.util.BlockUtil;
+
+import net.minecraft.block.AbstractBlock.AbstractBlockState;
+import net.minecraft.block.BlockState;
+import net.minecraft.util.math.Direction;
+
+@Mixin(AbstractBlockState.class)
+public class AbstractBlockStateMixin implements IBlockState {
+	
+	/** Set for block states whose power emission has been found. */
+	private static final int FOUND = 1 << 18;
+	
+	/** The power emission of this block state, or 0 if it has not been found yet. */
+	private int powerEmission;
+	/** The classification of this block state, or 0 if it has not been classified yet. */
+	private int classification;
+	
+	/** The power level of this wire block state. */
+	private int wirePower;
+	/** The block states that only differ from this one in power level. */
+	private BlockState[] wirePowerStates;
+	
+	@Override
+	public int getWirePower() {
+		return wirePower;
+	}
+	
+	@Override
+	public BlockState[] getWirePowerStates() {
+		return wirePowerStates;
+	}
+	
+	@Override
+	public void setWirePower(int power, BlockState[] powerStates) {
+		wirePower = power;
+		wirePowerStates = powerStates;
+	}
+	
+	@Override
+	public int getClassification() {
+		return classification;
+	}
+	
+	@Override
+	public int classify() {
+		int flags = classification;
+		
+		if (flags == 0) {
+			BlockState state = (BlockState)(Object)this;
+			flags = CLASSIFIED;
+			
+			if (state.emitsRedstonePower()) {
+				flags |= EMITTER;
+			}
+			
+			classification = flags;
+		}
+		
+		return flags;
+	}
+	
+	@Override
+	public int getPowerEmission() {
+		int emission = powerEmission;
+		
+		// The power emission is found the first time it is needed.
+		// Finding it more than once (from different threads) does
+		// no harm, since the result is always the same.
+		if (emission == 0) {
+			emission = powerEmission = findPowerEmission();
+		}
+		
+		return emission;
+	}
+	
+	private int findPowerEmission() {
+		BlockState state = (BlockState)(Object)this;
+		IBlock block = (IBlock)state.getBlock();
+		
+		if (block.usesWorldForPowerEmission()) {
+			return -1;
+		}
+		
+		int weak = 0;
+		int strong = 0;
+		
+		for (Direction dir : BlockUtil.DIRECTIONS) {
+			if (block.emitsWeakPowerTo(null, null, state, dir)) {
+				weak |= 1 << dir.getId();
+			}
+			if (block.emitsStrongPowerTo(null, null, state, dir)) {
+				strong |= 1 << dir.getId();
+			}
+		}
+		
+		int fanOut = block.getPowerFanOut(null, null, state);
+		
+		return FOUND | weak | (strong << 6) | (fanOut << 12);
+	}
+}
@@ -1,12 +1,20 @@
 package alternate.current.mixin.block;
 
+import java.util.Random;
+
 import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
 
 import alternate.current.interfaces.mixin.IBlock;
+import alternate.current.redstone.WireHandler.Directions;
+import alternate.current.interfaces.mixin.IServerWorld;
 
 import net.minecraft.block.AbstractButtonBlock;
 import net.minecraft.block.BlockState;
 import net.minecraft.block.WallMountedBlock;
+import net.minecraft.server.world.ServerWorld;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.Direction;
 import net.minecraft.world.World;
@@ -27,4 +35,77 @@ public abstract class AbstractButtonBlockMixin extends WallMountedBlock implemen
 	public boolean emitsStrongPowerTo(World world, BlockPos pos, BlockState state, Direction dir) {
 		return getDirection(state) == dir;
 	}
+	
+	@Override
+	public int getPowerFanOut(World world, BlockPos pos, BlockState state) {
+		return Directions.ALL_MASK;
+	}
+	
+	@Inject(
+			method = "powerOn",
+			at = @At(
+					value = "HEAD"
+			)
+	)
+	private void onPowerOnStart(BlockState state, World world, BlockPos pos, CallbackInfo ci) {
+		if (!world.isClient()) {
+			((IServerWorld)world).beginEmitterUpdate(pos, this);
+		}
+	}
+	
+	@Inject(
+			method = "powerOn",
+			at = @At(
+					value = "RETURN"
+			)
+	)
+	private void onPowerOnEnd(BlockState state, World world, BlockPos pos, CallbackInfo ci) {
+		if (!world.isClient()) {
+			((IServerWorld)world).endEmitterUpdate();
+		}
+	}
+	
+	@Inject(
+			method = "scheduledTick",
+			at = @At(
+					value = "HEAD"
+			)
+	)
+	private void onScheduledTickStart(BlockState state, ServerWorld world, BlockPos pos, Random random, CallbackInfo ci) {
+		((IServerWorld)world).beginEmitterUpdate(pos, this);
+	}
+	
+	@Inject(
+			method = "scheduledTick",
+			at = @At(
+					value = "RETURN"
+			)
+	)
+	private void onScheduledTickEnd(BlockState state, ServerWorld world, BlockPos pos, Random random, CallbackInfo ci) {
+		((IServerWorld)world).endEmitterUpdate();
+	}
+	
+	@Inject(
+			method = "tryPowerWithProjectiles",
+			at = @At(
+					value = "HEAD"
+			)
+	)
+	private void onTryPowerWithProjectilesStart(BlockState state, World world, BlockPos pos, CallbackInfo ci) {
+		if (!world.isClient()) {
+			((IServerWorld)world).beginEmitterUpdate(pos, this);
+		}
+	}
+	
+	@Inject(
+			method = "tryPowerWithProjectiles",
+			at = @At(
+					value = "RETURN"
+			)
+	)
+	private void onTryPowerWithProjectilesEnd(BlockState state, World world, BlockPos pos, CallbackInfo ci) {
+		if (!world.isClient()) {
+			((IServerWorld)world).endEmitterUpdate();
+		}
+	}
 }
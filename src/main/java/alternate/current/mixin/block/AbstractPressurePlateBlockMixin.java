@@ -1,11 +1,17 @@
 package alternate.current.mixin.block;
 
 import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
 
 import alternate.current.interfaces.mixin.IBlock;
+import alternate.current.interfaces.mixin.IServerWorld;
 
 import net.minecraft.block.AbstractPressurePlateBlock;
+import net.minecraft.block.Block;
 import net.minecraft.block.BlockState;
+import net.minecraft.entity.Entity;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.Direction;
 import net.minecraft.world.World;
@@ -22,4 +28,28 @@ public class AbstractPressurePlateBlockMixin implements IBlock {
 	public boolean emitsStrongPowerTo(World world, BlockPos pos, BlockState state, Direction dir) {
 		return dir == Direction.UP;
 	}
+	
+	@Inject(
+			method = "updatePlateState",
+			at = @At(
+					value = "HEAD"
+			)
+	)
+	private void onUpdatePlateStateStart(Entity entity, World world, BlockPos pos, BlockState state, int output, CallbackInfo ci) {
+		if (!world.isClient()) {
+			((IServerWorld)world).beginEmitterUpdate(pos, (Block)(Object)this);
+		}
+	}
+	
+	@Inject(
+			method = "updatePlateState",
+			at = @At(
+					value = "RETURN"
+			)
+	)
+	private void onUpdatePlateStateEnd(Entity entity, World world, BlockPos pos, BlockState state, int output, CallbackInfo ci) {
+		if (!world.isClient()) {
+			((IServerWorld)world).endEmitterUpdate();
+		}
+	}
 }
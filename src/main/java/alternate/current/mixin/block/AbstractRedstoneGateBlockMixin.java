@@ -3,6 +3,7 @@ package alternate.current.mixin.block;
 import org.spongepowered.asm.mixin.Mixin;
 
 import alternate.current.interfaces.mixin.IBlock;
+import alternate.current.redstone.WireHandler.Directions;
 
 import net.minecraft.block.AbstractRedstoneGateBlock;
 import net.minecraft.block.BlockState;
@@ -23,4 +24,9 @@ public class AbstractRedstoneGateBlockMixin implements IBlock {
 	public boolean emitsStrongPowerTo(World world, BlockPos pos, BlockState state, Direction dir) {
 		return state.get(Properties.HORIZONTAL_FACING) == dir;
 	}
+	
+	@Override
+	public int getPowerFanOut(World world, BlockPos pos, BlockState state) {
+		return 1 << Directions.iOpposite(Directions.index(state.get(Properties.HORIZONTAL_FACING)));
+	}
 }
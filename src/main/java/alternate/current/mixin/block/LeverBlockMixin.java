@@ -1,8 +1,13 @@
 package alternate.current.mixin.block;
 
 import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
 
 import alternate.current.interfaces.mixin.IBlock;
+import alternate.current.redstone.WireHandler.Directions;
+import alternate.current.interfaces.mixin.IServerWorld;
 
 import net.minecraft.block.BlockState;
 import net.minecraft.block.LeverBlock;
@@ -27,4 +32,33 @@ public abstract class LeverBlockMixin extends WallMountedBlock implements IBlock
 	public boolean emitsStrongPowerTo(World world, BlockPos pos, BlockState state, Direction dir) {
 		return getDirection(state) == dir;
 	}
+	
+	@Override
+	public int getPowerFanOut(World world, BlockPos pos, BlockState state) {
+		return Directions.ALL_MASK;
+	}
+	
+	@Inject(
+			method = "togglePower",
+			at = @At(
+					value = "HEAD"
+			)
+	)
+	private void onTogglePowerStart(BlockState state, World world, BlockPos pos, CallbackInfoReturnable<BlockState> cir) {
+		if (!world.isClient()) {
+			((IServerWorld)world).beginEmitterUpdate(pos, this);
+		}
+	}
+	
+	@Inject(
+			method = "togglePower",
+			at = @At(
+					value = "RETURN"
+			)
+	)
+	private void onTogglePowerEnd(BlockState state, World world, BlockPos pos, CallbackInfoReturnable<BlockState> cir) {
+		if (!world.isClient()) {
+			((IServerWorld)world).endEmitterUpdate();
+		}
+	}
 }
@@ -0,0 +1,42 @@
+package alternate.current.mixin.block;
+
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
+
+import alternate.current.AlternateCurrentMod;
+import alternate.current.interfaces.mixin.IServerWorld;
+
+import net.minecraft.block.PistonBlock;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Direction;
+import net.minecraft.world.World;
+
+@Mixin(PistonBlock.class)
+public class PistonBlockMixin {
+	
+	@Inject(
+			method = "move",
+			at = @At(
+					value = "HEAD"
+			)
+	)
+	private void onMoveStart(World world, BlockPos pos, Direction dir, boolean retract, CallbackInfoReturnable<Boolean> cir) {
+		if (AlternateCurrentMod.batchMoves && !world.isClient()) {
+			((IServerWorld)world).beginBatch();
+		}
+	}
+	
+	@Inject(
+			method = "move",
+			at = @At(
+					value = "RETURN"
+			)
+	)
+	private void onMoveEnd(World world, BlockPos pos, Direction dir, boolean retract, CallbackInfoReturnable<Boolean> cir) {
+		if (AlternateCurrentMod.batchMoves && !world.isClient()) {
+			((IServerWorld)world).endBatch();
+		}
+	}
+}
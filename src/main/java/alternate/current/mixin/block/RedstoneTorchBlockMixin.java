@@ -3,6 +3,7 @@ package alternate.current.mixin.block;
 import org.spongepowered.asm.mixin.Mixin;
 
 import alternate.current.interfaces.mixin.IBlock;
+import alternate.current.redstone.WireHandler.Directions;
 
 import net.minecraft.block.BlockState;
 import net.minecraft.block.RedstoneTorchBlock;
@@ -22,4 +23,9 @@ public class RedstoneTorchBlockMixin implements IBlock {
 	public boolean emitsStrongPowerTo(World world, BlockPos pos, BlockState state, Direction dir) {
 		return dir == Direction.DOWN;
 	}
+	
+	@Override
+	public int getPowerFanOut(World world, BlockPos pos, BlockState state) {
+		return Directions.ALL_MASK & ~(1 << Directions.DOWN);
+	}
 }
@@ -1,11 +1,19 @@
 package alternate.current.mixin.block;
 
+import java.util.Random;
+
 import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
 
 import alternate.current.interfaces.mixin.IBlock;
+import alternate.current.interfaces.mixin.IServerWorld;
 
+import net.minecraft.block.Block;
 import net.minecraft.block.BlockState;
 import net.minecraft.block.TargetBlock;
+import net.minecraft.server.world.ServerWorld;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.Direction;
 import net.minecraft.world.World;
@@ -17,4 +25,48 @@ public class TargetBlockMixin implements IBlock {
 	public boolean emitsWeakPowerTo(World world, BlockPos pos, BlockState state, Direction dir) {
 		return true;
 	}
+	
+	@Inject(
+			method = "setPower",
+			at = @At(
+					value = "HEAD"
+			)
+	)
+	private static void onSetPowerStart(net.minecraft.world.WorldAccess world, BlockState state, int power, BlockPos pos, int delay, CallbackInfo ci) {
+		if (!world.isClient()) {
+			((IServerWorld)world).beginEmitterUpdate(pos, state.getBlock());
+		}
+	}
+	
+	@Inject(
+			method = "setPower",
+			at = @At(
+					value = "RETURN"
+			)
+	)
+	private static void onSetPowerEnd(net.minecraft.world.WorldAccess world, BlockState state, int power, BlockPos pos, int delay, CallbackInfo ci) {
+		if (!world.isClient()) {
+			((IServerWorld)world).endEmitterUpdate();
+		}
+	}
+	
+	@Inject(
+			method = "scheduledTick",
+			at = @At(
+					value = "HEAD"
+			)
+	)
+	private void onScheduledTickStart(BlockState state, ServerWorld world, BlockPos pos, Random random, CallbackInfo ci) {
+		((IServerWorld)world).beginEmitterUpdate(pos, (Block)(Object)this);
+	}
+	
+	@Inject(
+			method = "scheduledTick",
+			at = @At(
+					value = "RETURN"
+			)
+	)
+	private void onScheduledTickEnd(BlockState state, ServerWorld world, BlockPos pos, Random random, CallbackInfo ci) {
+		((IServerWorld)world).endEmitterUpdate();
+	}
 }
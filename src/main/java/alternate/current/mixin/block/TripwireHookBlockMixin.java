@@ -1,9 +1,14 @@
 package alternate.current.mixin.block;
 
 import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
 
 import alternate.current.interfaces.mixin.IBlock;
+import alternate.current.interfaces.mixin.IServerWorld;
 
+import net.minecraft.block.Block;
 import net.minecraft.block.BlockState;
 import net.minecraft.block.TripwireHookBlock;
 import net.minecraft.state.property.Properties;
@@ -23,4 +28,28 @@ public class TripwireHookBlockMixin implements IBlock {
 	public boolean emitsStrongPowerTo(World world, BlockPos pos, BlockState state, Direction dir) {
 		return state.get(Properties.HORIZONTAL_FACING) == dir;
 	}
+	
+	@Inject(
+			method = "update",
+			at = @At(
+					value = "HEAD"
+			)
+	)
+	private void onUpdateStart(World world, BlockPos pos, BlockState state, boolean beingRemoved, boolean attached, int searchRadius, BlockState tripwireState, CallbackInfo ci) {
+		if (!world.isClient()) {
+			((IServerWorld)world).beginEmitterUpdate(pos, (Block)(Object)this);
+		}
+	}
+	
+	@Inject(
+			method = "update",
+			at = @At(
+					value = "RETURN"
+			)
+	)
+	private void onUpdateEnd(World world, BlockPos pos, BlockState state, boolean beingRemoved, boolean attached, int searchRadius, BlockState tripwireState, CallbackInfo ci) {
+		if (!world.isClient()) {
+			((IServerWorld)world).endEmitterUpdate();
+		}
+	}
 }
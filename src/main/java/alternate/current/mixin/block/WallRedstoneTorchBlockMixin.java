@@ -3,6 +3,7 @@ package alternate.current.mixin.block;
 import org.spongepowered.asm.mixin.Mixin;
 
 import alternate.current.interfaces.mixin.IBlock;
+import alternate.current.redstone.WireHandler.Directions;
 
 import net.minecraft.block.BlockState;
 import net.minecraft.block.WallRedstoneTorchBlock;
@@ -18,4 +19,9 @@ public class WallRedstoneTorchBlockMixin implements IBlock {
 	public boolean emitsWeakPowerTo(World world, BlockPos pos, BlockState state, Direction dir) {
 		return state.get(Properties.HORIZONTAL_FACING) != dir;
 	}
+	
+	@Override
+	public int getPowerFanOut(World world, BlockPos pos, BlockState state) {
+		return Directions.ALL_MASK & ~(1 << Directions.iOpposite(Directions.index(state.get(Properties.HORIZONTAL_FACING))));
+	}
 }
@@ -0,0 +1,645 @@
+package alternate.current.redstone;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import alternate.current.redstone.WireHandler.Directions;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntList;
+import it.unimi.dsi.fastutil.longs.Long2IntMap;
+
+/**
+ * A compact form of a network of connected wires. For each wire that
+ * can receive power from outside the network (an 'entry'), it stores
+ * the distance to every wire that entry can power. The power levels
+ * of all wires can then be found by taking, for each wire, the
+ * largest power an entry offers it minus the power lost over the
+ * distance between them.
+ * 
+ * <p>
+ * Long runs of wire without branches are compressed into chains.
+ * Only the wires at the ends of a chain (the 'junctions') are
+ * labeled, and the power levels along the chain are filled in
+ * afterwards, so labeling and most of the work to find power levels
+ * scale with the number of junctions rather than the number of wires.
+ * 
+ * <p>
+ * A compiled network is only valid as long as its topology does not
+ * change. The wire handler discards it as soon as a block around any
+ * of its wires changes in a way that could affect connections.
+ */
+public class CompiledNetwork {
+	
+	/** Networks with fewer entries than this are always labeled on one thread. */
+	private static final int PARALLEL_MIN_ENTRIES = 64;
+	/** The number of entries each thread labels at a time. */
+	private static final int PARALLEL_BATCH_SIZE = 16;
+	
+	/** Marks wires that are part of networks too large to compile. */
+	public static final CompiledNetwork UNCOMPILABLE = new CompiledNetwork();
+	
+	final WireNode[] wires;
+	/** The indices of wires that can receive power from outside the network. */
+	final int[] entries;
+	
+	/** For each wire, where its incoming connections start in the arrays below. */
+	private final int[] inStart;
+	private final int[] inWires;
+	/** The direction of power flow along each incoming connection. */
+	private final int[] inDirs;
+	
+	/** The indices of wires that are not links in a chain. */
+	private final int[] junctions;
+	
+	/** For each chain, where its links start in the array below. */
+	private final int[] chainStart;
+	/** The links of each chain, in order from its first to its last end. */
+	private final int[] chainWires;
+	/** The junctions at the first and last end of each chain. */
+	private final int[] chainEnds;
+	/** For each chain, whether power can flow in from its first (bit 0) and last (bit 1) end. */
+	private final int[] chainFlows;
+	
+	/** For each entry, where its labels start in the arrays below. */
+	private final int[] labelStart;
+	/** The junctions each entry can power. */
+	private final int[] labelWires;
+	private final int[] labelDistances;
+	
+	/** For each wire, its index in the junctions array, or -1 if it is a link in a chain. */
+	private final int[] junctionIndices;
+	/** For each junction, where the entries that can power it start in the arrays below. */
+	private final int[] junctionLabelStart;
+	private final int[] junctionLabelEntries;
+	private final int[] junctionLabelDistances;
+	/** For each junction, where the chains that end at it start in the array below. */
+	private final int[] junctionChainStart;
+	private final int[] junctionChains;
+	
+	/** The power levels found by the last call to {@link #findPowers} or {@link #updatePowers}. */
+	final int[] powers;
+	/** The external power of each entry when the power levels were last found. */
+	private final int[] entryPowers;
+	private final boolean[] affectedJunctions;
+	private final boolean[] affectedChains;
+	
+	boolean valid;
+	/**
+	 * True if the power levels of this network have not been changed
+	 * other than through this compiled form since they were last found.
+	 */
+	boolean synced;
+	
+	private CompiledNetwork() {
+		this.wires = new WireNode[0];
+		this.entries = new int[0];
+		this.inStart = new int[1];
+		this.inWires = new int[0];
+		this.inDirs = new int[0];
+		this.junctions = new int[0];
+		this.chainStart = new int[1];
+		this.chainWires = new int[0];
+		this.chainEnds = new int[0];
+		this.chainFlows = new int[0];
+		this.labelStart = new int[1];
+		this.labelWires = new int[0];
+		this.labelDistances = new int[0];
+		this.junctionIndices = new int[0];
+		this.junctionLabelStart = new int[1];
+		this.junctionLabelEntries = new int[0];
+		this.junctionLabelDistances = new int[0];
+		this.junctionChainStart = new int[1];
+		this.junctionChains = new int[0];
+		this.powers = new int[0];
+		this.entryPowers = new int[0];
+		this.affectedJunctions = new boolean[0];
+		this.affectedChains = new boolean[0];
+	}
+	
+	CompiledNetwork(List<WireNode> wires, Long2IntMap indices, IntArrayList entries, int maxDistance, boolean parallel) {
+		int size = wires.size();
+		
+		this.wires = wires.toArray(new WireNode[size]);
+		this.entries = entries.toIntArray();
+		this.inStart = new int[size + 1];
+		this.powers = new int[size];
+		
+		IntArrayList inWires = new IntArrayList();
+		IntArrayList inDirs = new IntArrayList();
+		
+		for (int index = 0; index < size; index++) {
+			WireConnectionManager connections = this.wires[index].connections;
+			this.inStart[index] = inWires.size();
+			
+			for (int c = 0; c < connections.count; c++) {
+				WireConnection connection = connections.all[c];
+				
+				if (connection.in) {
+					inWires.add(indices.get(connection.wire.pos.asLong()));
+					inDirs.add(Directions.iOpposite(connection.iDir));
+				}
+			}
+		}
+		
+		this.inStart[size] = inWires.size();
+		this.inWires = inWires.toIntArray();
+		this.inDirs = inDirs.toIntArray();
+		
+		// Runs of wires that can only pass on power from one neighbor
+		// to the other are compressed into chains. Power along a chain
+		// falls off by the same amount with each wire, so only the
+		// wires at either end of it need to be labeled.
+		boolean[] isEntry = new boolean[size];
+		
+		for (int e = 0; e < this.entries.length; e++) {
+			isEntry[this.entries[e]] = true;
+		}
+		
+		boolean[] isJunction = new boolean[size];
+		IntArrayList junctions = new IntArrayList();
+		
+		for (int index = 0; index < size; index++) {
+			if (isEntry[index] || !isChainLink(this.wires[index])) {
+				isJunction[index] = true;
+				junctions.add(index);
+			}
+		}
+		
+		this.junctions = junctions.toIntArray();
+		
+		int[] junctionIndices = new int[size];
+		Arrays.fill(junctionIndices, -1);
+		
+		for (int j = 0; j < this.junctions.length; j++) {
+			junctionIndices[this.junctions[j]] = j;
+		}
+		
+		IntArrayList chainStart = new IntArrayList();
+		IntArrayList chainWires = new IntArrayList();
+		IntArrayList chainEnds = new IntArrayList();
+		IntArrayList chainFlows = new IntArrayList();
+		
+		// Edges between junctions, as { from, to, distance } triples.
+		IntArrayList edges = new IntArrayList();
+		boolean[] inChain = new boolean[size];
+		
+		for (int j = 0; j < this.junctions.length; j++) {
+			int junction = this.junctions[j];
+			WireConnectionManager connections = this.wires[junction].connections;
+			
+			for (int c = 0; c < connections.count; c++) {
+				WireConnection connection = connections.all[c];
+				int neighbor = indices.get(connection.wire.pos.asLong());
+				
+				if (isJunction[neighbor]) {
+					if (connection.out) {
+						edges.add(j);
+						edges.add(junctionIndices[neighbor]);
+						edges.add(1);
+					}
+					
+					continue;
+				}
+				if (inChain[neighbor]) {
+					continue;
+				}
+				
+				// Walk along the chain until the next junction.
+				chainStart.add(chainWires.size());
+				
+				int prev = junction;
+				int next = neighbor;
+				
+				while (!isJunction[next]) {
+					inChain[next] = true;
+					chainWires.add(next);
+					
+					int link = findOtherLink(this.wires[next], this.wires[prev], indices);
+					prev = next;
+					next = link;
+				}
+				
+				int length = chainWires.size() - chainStart.getInt(chainStart.size() - 1);
+				boolean outA = connection.out;
+				boolean outB = canPower(this.wires[next], this.wires[prev]);
+				
+				chainEnds.add(junction);
+				chainEnds.add(next);
+				chainFlows.add((outA ? 0b01 : 0) | (outB ? 0b10 : 0));
+				
+				if (outA) {
+					edges.add(j);
+					edges.add(junctionIndices[next]);
+					edges.add(length + 1);
+				}
+				if (outB) {
+					edges.add(junctionIndices[next]);
+					edges.add(j);
+					edges.add(length + 1);
+				}
+			}
+		}
+		
+		chainStart.add(chainWires.size());
+		
+		this.chainStart = chainStart.toIntArray();
+		this.chainWires = chainWires.toIntArray();
+		this.chainEnds = chainEnds.toIntArray();
+		this.chainFlows = chainFlows.toIntArray();
+		
+		// Sort the edges by the junction they start from.
+		int junctionCount = this.junctions.length;
+		int edgeCount = edges.size() / 3;
+		int[] edgeStart = new int[junctionCount + 1];
+		int[] edgeTargets = new int[edgeCount];
+		int[] edgeDistances = new int[edgeCount];
+		
+		for (int i = 0; i < edgeCount; i++) {
+			edgeStart[edges.getInt(3 * i) + 1]++;
+		}
+		for (int j = 0; j < junctionCount; j++) {
+			edgeStart[j + 1] += edgeStart[j];
+		}
+		
+		int[] fill = Arrays.copyOf(edgeStart, junctionCount);
+		
+		for (int i = 0; i < edgeCount; i++) {
+			int e = fill[edges.getInt(3 * i)]++;
+			
+			edgeTargets[e] = edges.getInt(3 * i + 1);
+			edgeDistances[e] = edges.getInt(3 * i + 2);
+		}
+		
+		// Label each junction with its distance to each entry.
+		this.labelStart = new int[this.entries.length + 1];
+		
+		IntArrayList labelWires = new IntArrayList();
+		IntArrayList labelDistances = new IntArrayList();
+		
+		// Labeling each entry only reads the edges found above, so
+		// for networks with many entries the work can be spread over
+		// multiple threads. The labels are put together in the order
+		// of the entries either way, so the result is the same.
+		if (parallel && this.entries.length >= PARALLEL_MIN_ENTRIES) {
+			int batchCount = (this.entries.length + PARALLEL_BATCH_SIZE - 1) / PARALLEL_BATCH_SIZE;
+			Labeler[] labelers = new Labeler[batchCount];
+			
+			IntStream.range(0, batchCount).parallel().forEach(batch -> {
+				Labeler labeler = new Labeler(edgeStart, edgeTargets, edgeDistances, maxDistance);
+				
+				int from = batch * PARALLEL_BATCH_SIZE;
+				int to = Math.min(from + PARALLEL_BATCH_SIZE, this.entries.length);
+				
+				for (int e = from; e < to; e++) {
+					labeler.label(junctionIndices[this.entries[e]]);
+				}
+				
+				labelers[batch] = labeler;
+			});
+			
+			int e = 0;
+			
+			for (int batch = 0; batch < batchCount; batch++) {
+				Labeler labeler = labelers[batch];
+				
+				for (int i = 0; i < labeler.labelStarts.size(); i++) {
+					this.labelStart[e++] = labelWires.size() + labeler.labelStarts.getInt(i);
+				}
+				
+				labelWires.addAll(labeler.labelWires);
+				labelDistances.addAll(labeler.labelDistances);
+			}
+		} else {
+			Labeler labeler = new Labeler(edgeStart, edgeTargets, edgeDistances, maxDistance);
+			
+			for (int e = 0; e < this.entries.length; e++) {
+				labeler.label(junctionIndices[this.entries[e]]);
+			}
+			
+			for (int e = 0; e < this.entries.length; e++) {
+				this.labelStart[e] = labeler.labelStarts.getInt(e);
+			}
+			
+			labelWires = labeler.labelWires;
+			labelDistances = labeler.labelDistances;
+		}
+		
+		// The labels refer to junctions by their index in the
+		// junctions array, but are stored as wire indices.
+		for (int l = 0; l < labelWires.size(); l++) {
+			labelWires.set(l, this.junctions[labelWires.getInt(l)]);
+		}
+		
+		this.labelStart[this.entries.length] = labelWires.size();
+		this.labelWires = labelWires.toIntArray();
+		this.labelDistances = labelDistances.toIntArray();
+		
+		// Invert the labels and chain ends, so that the parts of the
+		// network an entry can affect can be updated on their own.
+		this.junctionIndices = junctionIndices;
+		this.junctionLabelStart = new int[junctionCount + 1];
+		this.junctionLabelEntries = new int[this.labelWires.length];
+		this.junctionLabelDistances = new int[this.labelWires.length];
+		this.junctionChainStart = new int[junctionCount + 1];
+		this.junctionChains = new int[this.chainEnds.length];
+		
+		for (int l = 0; l < this.labelWires.length; l++) {
+			this.junctionLabelStart[junctionIndices[this.labelWires[l]] + 1]++;
+		}
+		for (int i = 0; i < this.chainEnds.length; i++) {
+			this.junctionChainStart[junctionIndices[this.chainEnds[i]] + 1]++;
+		}
+		for (int j = 0; j < junctionCount; j++) {
+			this.junctionLabelStart[j + 1] += this.junctionLabelStart[j];
+			this.junctionChainStart[j + 1] += this.junctionChainStart[j];
+		}
+		
+		int[] labelFill = Arrays.copyOf(this.junctionLabelStart, junctionCount);
+		int[] chainFill = Arrays.copyOf(this.junctionChainStart, junctionCount);
+		
+		for (int e = 0; e < this.entries.length; e++) {
+			for (int l = this.labelStart[e]; l < this.labelStart[e + 1]; l++) {
+				int i = labelFill[junctionIndices[this.labelWires[l]]]++;
+				
+				this.junctionLabelEntries[i] = e;
+				this.junctionLabelDistances[i] = this.labelDistances[l];
+			}
+		}
+		for (int i = 0; i < this.chainEnds.length; i++) {
+			this.junctionChains[chainFill[junctionIndices[this.chainEnds[i]]]++] = i >> 1;
+		}
+		
+		this.entryPowers = new int[this.entries.length];
+		this.affectedJunctions = new boolean[junctionCount];
+		this.affectedChains = new boolean[this.chainFlows.length];
+		
+		this.valid = true;
+	}
+	
+	/**
+	 * Check if the given wire is a link in a chain: a wire that is not
+	 * powered from outside the network and has exactly two connections,
+	 * both of which can carry power either way.
+	 */
+	private static boolean isChainLink(WireNode wire) {
+		WireConnectionManager connections = wire.connections;
+		
+		if (connections.count != 2) {
+			return false;
+		}
+		
+		for (int c = 0; c < connections.count; c++) {
+			WireConnection connection = connections.all[c];
+			
+			if (!connection.in || !connection.out) {
+				return false;
+			}
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * Find the index of the wire the given chain link is connected to,
+	 * other than the given wire.
+	 */
+	private static int findOtherLink(WireNode link, WireNode other, Long2IntMap indices) {
+		WireConnection connection = link.connections.all[0];
+		
+		if (connection.wire == other) {
+			connection = link.connections.all[1];
+		}
+		
+		return indices.get(connection.wire.pos.asLong());
+	}
+	
+	/**
+	 * Check if the given wire can pass on power to the other wire.
+	 */
+	private static boolean canPower(WireNode wire, WireNode other) {
+		for (int c = 0; c < wire.connections.count; c++) {
+			WireConnection connection = wire.connections.all[c];
+			
+			if (connection.wire == other) {
+				return connection.out;
+			}
+		}
+		
+		return false;
+	}
+	
+	/**
+	 * Find the power level of each wire in the network, given the
+	 * external power of the entries.
+	 */
+	void findPowers(int minPower, int powerStep) {
+		Arrays.fill(powers, minPower);
+		
+		for (int e = 0; e < entries.length; e++) {
+			int power = entryPowers[e] = wires[entries[e]].externalPower;
+			
+			if (power <= minPower) {
+				continue;
+			}
+			
+			for (int l = labelStart[e]; l < labelStart[e + 1]; l++) {
+				int index = labelWires[l];
+				int offered = power - labelDistances[l] * powerStep;
+				
+				if (offered > powers[index]) {
+					powers[index] = offered;
+				}
+			}
+		}
+		
+		for (int chain = 0; chain < chainFlows.length; chain++) {
+			findChainPowers(chain, minPower, powerStep);
+		}
+	}
+	
+	/**
+	 * Find the power levels of the wires that can be affected by the
+	 * entries whose external power changed since the power levels
+	 * were last found. The rest of the network keeps its power levels.
+	 * 
+	 * @param affected the indices of the wires whose power levels
+	 * were found are added to this list.
+	 */
+	void updatePowers(int minPower, int powerStep, IntList affected) {
+		IntList junctionsToUpdate = new IntArrayList();
+		
+		for (int e = 0; e < entries.length; e++) {
+			int power = wires[entries[e]].externalPower;
+			
+			if (power == entryPowers[e]) {
+				continue;
+			}
+			
+			entryPowers[e] = power;
+			
+			for (int l = labelStart[e]; l < labelStart[e + 1]; l++) {
+				int j = junctionIndices[labelWires[l]];
+				
+				if (!affectedJunctions[j]) {
+					affectedJunctions[j] = true;
+					junctionsToUpdate.add(j);
+				}
+			}
+		}
+		
+		for (int i = 0; i < junctionsToUpdate.size(); i++) {
+			int j = junctionsToUpdate.getInt(i);
+			int power = minPower;
+			
+			for (int l = junctionLabelStart[j]; l < junctionLabelStart[j + 1]; l++) {
+				power = Math.max(power, entryPowers[junctionLabelEntries[l]] - junctionLabelDistances[l] * powerStep);
+			}
+			
+			powers[junctions[j]] = power;
+			affected.add(junctions[j]);
+		}
+		for (int i = 0; i < junctionsToUpdate.size(); i++) {
+			int j = junctionsToUpdate.getInt(i);
+			affectedJunctions[j] = false;
+			
+			for (int c = junctionChainStart[j]; c < junctionChainStart[j + 1]; c++) {
+				int chain = junctionChains[c];
+				
+				if (affectedChains[chain]) {
+					continue;
+				}
+				
+				affectedChains[chain] = true;
+				findChainPowers(chain, minPower, powerStep);
+				
+				for (int link = chainStart[chain]; link < chainStart[chain + 1]; link++) {
+					affected.add(chainWires[link]);
+				}
+			}
+		}
+		for (int i = 0; i < junctionsToUpdate.size(); i++) {
+			int j = junctionsToUpdate.getInt(i);
+			
+			for (int c = junctionChainStart[j]; c < junctionChainStart[j + 1]; c++) {
+				affectedChains[junctionChains[c]] = false;
+			}
+		}
+	}
+	
+	/**
+	 * Power along a chain falls off steadily from either end.
+	 */
+	private void findChainPowers(int chain, int minPower, int powerStep) {
+		int start = chainStart[chain];
+		int length = chainStart[chain + 1] - start;
+		int flow = chainFlows[chain];
+		
+		int powerA = ((flow & 0b01) != 0) ? powers[chainEnds[2 * chain]] : minPower;
+		int powerB = ((flow & 0b10) != 0) ? powers[chainEnds[2 * chain + 1]] : minPower;
+		
+		for (int link = 0; link < length; link++) {
+			int power = Math.max(powerA - (link + 1) * powerStep, powerB - (length - link) * powerStep);
+			powers[chainWires[start + link]] = Math.max(minPower, power);
+		}
+	}
+	
+	/**
+	 * Determine the incoming power flow of the given wire, based on
+	 * which connected wires give it its power level.
+	 */
+	int findFlowIn(int index, int powerStep) {
+		int flowIn = 0;
+		
+		for (int i = inStart[index]; i < inStart[index + 1]; i++) {
+			if (powers[inWires[i]] - powerStep == powers[index]) {
+				flowIn |= 1 << inDirs[i];
+			}
+		}
+		
+		return flowIn;
+	}
+	
+	int size() {
+		return wires.length;
+	}
+	
+	/**
+	 * Labels junctions with their distances to entries, by walking
+	 * from each entry along outgoing connections. Power does not
+	 * reach further than the given distance, so there is no need to
+	 * look further than that. Since chains make the distances between
+	 * junctions uneven, junctions are visited in order of distance.
+	 */
+	private static class Labeler {
+		
+		private final int[] edgeStart;
+		private final int[] edgeTargets;
+		private final int[] edgeDistances;
+		private final int maxDistance;
+		
+		private final int[] distances;
+		private final IntArrayList[] buckets;
+		
+		/** For each entry that was labeled, where its labels start. */
+		private final IntArrayList labelStarts;
+		/** The junctions that were labeled, by junction index. */
+		private final IntArrayList labelWires;
+		private final IntArrayList labelDistances;
+		
+		private Labeler(int[] edgeStart, int[] edgeTargets, int[] edgeDistances, int maxDistance) {
+			this.edgeStart = edgeStart;
+			this.edgeTargets = edgeTargets;
+			this.edgeDistances = edgeDistances;
+			this.maxDistance = maxDistance;
+			
+			this.distances = new int[edgeStart.length - 1];
+			this.buckets = new IntArrayList[maxDistance + 1];
+			
+			for (int d = 0; d <= maxDistance; d++) {
+				this.buckets[d] = new IntArrayList();
+			}
+			
+			this.labelStarts = new IntArrayList();
+			this.labelWires = new IntArrayList();
+			this.labelDistances = new IntArrayList();
+		}
+		
+		private void label(int source) {
+			labelStarts.add(labelWires.size());
+			
+			Arrays.fill(distances, Integer.MAX_VALUE);
+			
+			distances[source] = 0;
+			buckets[0].add(source);
+			
+			for (int d = 0; d <= maxDistance; d++) {
+				IntArrayList bucket = buckets[d];
+				
+				for (int b = 0; b < bucket.size(); b++) {
+					int j = bucket.getInt(b);
+					
+					if (distances[j] != d) {
+						continue; // already reached by a shorter path
+					}
+					
+					labelWires.add(j);
+					labelDistances.add(d);
+					
+					for (int i = edgeStart[j]; i < edgeStart[j + 1]; i++) {
+						int target = edgeTargets[i];
+						int distance = d + edgeDistances[i];
+						
+						if (distance <= maxDistance && distance < distances[target]) {
+							distances[target] = distance;
+							buckets[distance].add(target);
+						}
+					}
+				}
+				
+				bucket.clear();
+			}
+		}
+	}
+}
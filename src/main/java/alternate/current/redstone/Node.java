@@ -29,6 +29,19 @@ public class Node {
 	public BlockPos pos;
 	public BlockState state;
 	public boolean invalid;
+	/** The generation in which this node was last used. */
+	public long generation;
+	/**
+	 * The generation in which the strong power this node receives
+	 * was last found. It stays valid for the rest of that update.
+	 */
+	public long strongPowerGeneration;
+	/** The highest strong power this node receives. */
+	public int strongPower;
+	/** The directions from which this node receives its highest strong power. */
+	public int strongPowerDirs;
+	/** The highest strong power this node receives from any other direction. */
+	public int otherStrongPower;
 	
 	private int flags;
 	
@@ -65,13 +78,14 @@ public class Node {
 		this.pos = pos.toImmutable();
 		this.state = state;
 		this.invalid = false;
+		this.strongPowerGeneration = -1L;
 		
 		this.flags = 0;
 		
 		if (this.world.isConductor(this.pos, this.state)) {
 			this.flags |= CONDUCTOR;
 		}
-		if (this.state.emitsRedstonePower()) {
+		if (this.world.isRedstoneComponent(this.state)) {
 			this.flags |= REDSTONE;
 		}
 		
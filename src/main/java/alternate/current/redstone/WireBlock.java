@@ -1,7 +1,10 @@
 package alternate.current.redstone;
 
+import alternate.current.interfaces.mixin.IBlockState;
+
 import net.minecraft.block.Block;
 import net.minecraft.block.BlockState;
+import net.minecraft.state.property.IntProperty;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.MathHelper;
 
@@ -55,6 +58,53 @@ public interface WireBlock {
 	 */
 	public BlockState updatePowerState(WorldAccess world, BlockPos pos, BlockState state, int power);
 	
+	/**
+	 * Build tables that map each block state of this wire block to
+	 * its power level, and to the block states that only differ from
+	 * it in power level. Wire blocks that keep their power level in
+	 * a block state property can call this once their block states
+	 * exist, and implement the two methods above with
+	 * {@link #getTablePower} and {@link #getTablePowerState}. These
+	 * are a field and an array load, rather than property lookups.
+	 */
+	default void buildPowerTables(IntProperty property) {
+		int minPower = getMinPower();
+		int maxPower = getMaxPower();
+		
+		for (BlockState state : asBlock().getStateManager().getStates()) {
+			if (((IBlockState)state).getWirePowerStates() != null) {
+				continue;
+			}
+			
+			BlockState[] powerStates = new BlockState[maxPower - minPower + 1];
+			
+			for (int power = minPower; power <= maxPower; power++) {
+				powerStates[power - minPower] = state.with(property, power);
+			}
+			for (int power = minPower; power <= maxPower; power++) {
+				((IBlockState)powerStates[power - minPower]).setWirePower(power, powerStates);
+			}
+		}
+	}
+	
+	default int getTablePower(BlockState state) {
+		return ((IBlockState)state).getWirePower();
+	}
+	
+	default BlockState getTablePowerState(BlockState state, int power) {
+		return ((IBlockState)state).getWirePowerStates()[power - getMinPower()];
+	}
+	
+	/**
+	 * Find the horizontal directions in which the given wire points,
+	 * as it would be shaped based on the blocks around it. The wire
+	 * only gives weak power to blocks it points into.
+	 * 
+	 * @return a bit mask in which bit {@code i} is set if the wire
+	 * points in the direction {@code Directions.HORIZONTAL[i]}.
+	 */
+	public int findConnectionMask(WorldAccess world, BlockPos pos, BlockState state);
+	
 	/**
 	 * Find the connections between the given WireNode and
 	 * neighboring WireNodes.
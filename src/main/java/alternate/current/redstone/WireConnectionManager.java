@@ -33,6 +33,12 @@ public class WireConnectionManager {
 	/** The direction of flow  based connections to other wires. */
 	public int flow;
 	
+	/**
+	 * True if the blocks around the owner have changed since these
+	 * connections were found.
+	 */
+	public boolean invalid;
+	
 	public WireConnectionManager(WireNode wire) {
 		this.wire = wire;
 		this.all = new WireConnection[Directions.HORIZONTAL.length];
@@ -42,6 +48,8 @@ public class WireConnectionManager {
 		
 		this.flowTotal = 0;
 		this.flow = -1;
+		
+		this.invalid = true;
 	}
 	
 	public void set(BiConsumer<ConnectionConsumer, Integer> setter) {
@@ -55,6 +63,8 @@ public class WireConnectionManager {
 		}
 		
 		setIndex(Directions.HORIZONTAL.length, count);
+		
+		invalid = false;
 	}
 	
 	private void clear() {
@@ -0,0 +1,214 @@
+package alternate.current.redstone;
+
+import java.util.Arrays;
+import java.util.List;
+
+import alternate.current.redstone.WireHandler.Directions;
+
+import net.minecraft.util.math.BlockPos;
+
+/**
+ * A flat, rectangular grid used to find the power levels of large,
+ * dense networks of wire (like carpets of redstone dust) with a few
+ * passes over primitive arrays, rather than through the power queue.
+ * 
+ * <p>
+ * Each cell holds the power a wire receives from outside the network,
+ * and for each direction the cost of receiving power from the cell in
+ * that direction. The cost is the power step if the wires are
+ * connected, and prohibitively large if they are not. Each pass then
+ * takes, for each cell, the maximum of its own power and the power of
+ * its neighbors minus the costs. Since power drops by at least one
+ * step per wire, the grid settles after at most as many passes as
+ * there are power levels.
+ * 
+ * <p>
+ * The grid is padded by one cell on each side, so the passes do not
+ * need any bounds checks. The loops contain no branches, so that the
+ * JIT compiler can vectorize them.
+ */
+public class WireGrid {
+	
+	/** Networks smaller than this are not worth solving on a grid. */
+	public static final int MIN_SIZE = 256;
+	/** The largest number of cells a grid may have. */
+	public static final int MAX_AREA = 1 << 16;
+	/** Networks must fill at least 1 in this many cells of their grid. */
+	public static final int MIN_DENSITY = 2;
+	
+	/** The cost of moving power between cells that are not connected. */
+	private static final int BLOCKED = 1 << 16;
+	/** The power of cells that do not hold a wire. */
+	private static final int EMPTY = -BLOCKED;
+	
+	private int minX;
+	private int minZ;
+	private int y;
+	/** The width of the grid along the x-axis, including padding. */
+	private int width;
+	private int area;
+	
+	int[] powers = new int[0];
+	private int[] nextPowers = new int[0];
+	/** For each direction, the cost of receiving power from that direction. */
+	private final int[][] costs = new int[4][0];
+	/** For each direction, the offset to the neighboring cell in that direction. */
+	private final int[] offsets = new int[4];
+	
+	/**
+	 * Try to fit the given wires onto a grid. This fails if the wires
+	 * are not all at the same height or if they do not fill enough
+	 * of the rectangle around them.
+	 * 
+	 * @return whether the grid was set up for the given wires.
+	 */
+	boolean tryFit(List<WireNode> wires) {
+		if (wires.size() < MIN_SIZE) {
+			return false;
+		}
+		
+		BlockPos first = wires.get(0).pos;
+		
+		int minX = first.getX();
+		int maxX = minX;
+		int minZ = first.getZ();
+		int maxZ = minZ;
+		int y = first.getY();
+		
+		for (int index = 1; index < wires.size(); index++) {
+			BlockPos pos = wires.get(index).pos;
+			
+			if (pos.getY() != y) {
+				return false;
+			}
+			
+			minX = Math.min(minX, pos.getX());
+			maxX = Math.max(maxX, pos.getX());
+			minZ = Math.min(minZ, pos.getZ());
+			maxZ = Math.max(maxZ, pos.getZ());
+		}
+		
+		long sizeX = maxX - minX + 3L;
+		long sizeZ = maxZ - minZ + 3L;
+		long area = sizeX * sizeZ;
+		
+		if (area > MAX_AREA || area > (long)MIN_DENSITY * wires.size()) {
+			return false;
+		}
+		
+		this.minX = minX - 1;
+		this.minZ = minZ - 1;
+		this.y = y;
+		this.width = (int)sizeX;
+		this.area = (int)area;
+		
+		if (powers.length < this.area) {
+			powers = new int[this.area];
+			nextPowers = new int[this.area];
+			
+			for (int iDir = 0; iDir < costs.length; iDir++) {
+				costs[iDir] = new int[this.area];
+			}
+		}
+		
+		Arrays.fill(powers, 0, this.area, EMPTY);
+		
+		for (int iDir = 0; iDir < costs.length; iDir++) {
+			Arrays.fill(costs[iDir], 0, this.area, BLOCKED);
+		}
+		
+		offsets[Directions.WEST] = -1;
+		offsets[Directions.NORTH] = -width;
+		offsets[Directions.EAST] = 1;
+		offsets[Directions.SOUTH] = width;
+		
+		return true;
+	}
+	
+	/**
+	 * @return the index of the cell at the given position, or -1 if
+	 * that position is not inside the grid.
+	 */
+	int indexOf(BlockPos pos) {
+		int x = pos.getX() - minX;
+		int z = pos.getZ() - minZ;
+		
+		if (pos.getY() != y || x <= 0 || x >= width - 1 || z <= 0 || z >= area / width - 1) {
+			return -1;
+		}
+		
+		return x + z * width;
+	}
+	
+	/**
+	 * @return the index of the cell next to the given cell in the
+	 * given direction.
+	 */
+	int neighbor(int index, int iDir) {
+		return index + offsets[iDir];
+	}
+	
+	/**
+	 * Allow power to flow into the given cell from the given direction.
+	 */
+	void connect(int index, int iDir, int powerStep) {
+		costs[iDir][index] = powerStep;
+	}
+	
+	/**
+	 * Find the power levels of all cells, starting from the power each
+	 * cell receives from outside the network.
+	 */
+	void findPowers(int maxSteps) {
+		int[] west = costs[Directions.WEST];
+		int[] north = costs[Directions.NORTH];
+		int[] east = costs[Directions.EAST];
+		int[] south = costs[Directions.SOUTH];
+		
+		int start = width;
+		int end = area - width;
+		
+		System.arraycopy(powers, 0, nextPowers, 0, area);
+		
+		for (int step = 0; step < maxSteps; step++) {
+			int[] src = powers;
+			int[] dst = nextPowers;
+			
+			for (int i = start; i < end; i++) {
+				int power = src[i];
+				
+				power = Math.max(power, src[i - 1] - west[i]);
+				power = Math.max(power, src[i - width] - north[i]);
+				power = Math.max(power, src[i + 1] - east[i]);
+				power = Math.max(power, src[i + width] - south[i]);
+				
+				dst[i] = power;
+			}
+			
+			powers = dst;
+			nextPowers = src;
+			
+			if (Arrays.equals(src, start, end, dst, start, end)) {
+				break;
+			}
+		}
+	}
+	
+	/**
+	 * Find the directions from which the given cell receives its
+	 * power level, as a 4-bit number in the format of
+	 * {@link WireNode#flowIn}.
+	 */
+	int findFlowIn(int index, int powerStep) {
+		int power = powers[index];
+		int flowIn = 0;
+		
+		for (int iDir = 0; iDir < costs.length; iDir++) {
+			if (costs[iDir][index] == powerStep && powers[index + offsets[iDir]] - powerStep == power) {
+				flowIn |= 1 << Directions.iOpposite(iDir);
+			}
+		}
+		
+		return flowIn;
+	}
+}
@@ -1,22 +1,41 @@
 package alternate.current.redstone;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Queue;
 
-//import alternate.current.AlternateCurrentMod;
+import alternate.current.AlternateCurrentMod;
+import alternate.current.interfaces.mixin.IChunkSection;
 import alternate.current.util.BlockUtil;
 //import alternate.current.util.profiler.Profiler;
 
+import it.unimi.dsi.fastutil.HashCommon;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntArrays;
+import it.unimi.dsi.fastutil.ints.IntList;
+import it.unimi.dsi.fastutil.longs.Long2IntMap;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectLinkedOpenHashMap;
 import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
 import it.unimi.dsi.fastutil.longs.Long2ObjectMap.Entry;
 import it.unimi.dsi.fastutil.longs.Long2ObjectMaps;
 import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.longs.LongLinkedOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongList;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongSet;
 
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockEntityProvider;
 import net.minecraft.block.BlockState;
 import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
 import net.minecraft.util.math.Direction;
+import net.minecraft.world.chunk.ChunkSection;
 
 /**
  * This class handles power changes for redstone wire. The algorithm
@@ -161,10 +180,32 @@ public class WireHandler {
 		public static final int DOWN  = 4;
 		public static final int UP    = 5;
 		
+		/** A bit mask with the bits for all directions set. */
+		public static final int ALL_MASK = 0b111111;
+		
 		public static int iOpposite(int iDir) {
 			return iDir ^ (0b10 >>> (iDir >>> 2));
 		}
 		
+		public static int index(Direction dir) {
+			switch (dir) {
+			case WEST:
+				return WEST;
+			case NORTH:
+				return NORTH;
+			case EAST:
+				return EAST;
+			case SOUTH:
+				return SOUTH;
+			case DOWN:
+				return DOWN;
+			case UP:
+				return UP;
+			default:
+				throw new IllegalArgumentException("unknown direction " + dir);
+			}
+		}
+		
 		public static final int[][] EXCEPT = {
 			{ NORTH, EAST , SOUTH, DOWN , UP   },
 			{ WEST , EAST , SOUTH, DOWN , UP   },
@@ -250,6 +291,105 @@ public class WireHandler {
 		Directions.UP
 	};
 	
+	/**
+	 * A wire is considered stable if no blocks within this distance
+	 * of it have changed since it was last updated.
+	 */
+	private static final int STABILITY_RADIUS = 2;
+	/**
+	 * The largest number of chunk sections that can overlap the area
+	 * around a wire that is checked for stability.
+	 */
+	private static final int MAX_STABILITY_SECTIONS = 8;
+	
+	/**
+	 * The number of nodes that can be cached before cold nodes are
+	 * evicted.
+	 */
+	private static final int MAX_CACHED_NODES = 1 << 17;
+	/**
+	 * The number of generations a node can go unused before it is
+	 * considered cold.
+	 */
+	private static final long MAX_NODE_AGE = 1 << 12;
+	
+	/**
+	 * The neighbor checks in {@link #findRoots} are tracked in regions
+	 * of 2^7 x 2^7 blocks (8 x 8 chunks).
+	 */
+	private static final int SCAN_REGION_SHIFT = 7;
+	/**
+	 * The number of checks that must be recorded in a region before
+	 * the checks can be turned off there.
+	 */
+	private static final int SCAN_MIN_SAMPLES = 64;
+	/**
+	 * When this many checks have been recorded in a region, the
+	 * counts are halved.
+	 */
+	private static final int SCAN_SAMPLE_LIMIT = 1024;
+	/**
+	 * The checks stay on in a region as long as at least 1 in this
+	 * many of them finds extra roots.
+	 */
+	private static final int SCAN_MIN_HIT_RATIO = 32;
+	/**
+	 * In regions where the checks are turned off, they are still done
+	 * once every this many updates.
+	 */
+	private static final int SCAN_PROBE_INTERVAL = 64;
+	/**
+	 * The number of regions that are tracked before the least recently
+	 * used ones are forgotten.
+	 */
+	private static final int MAX_SCAN_REGIONS = 1024;
+	
+	/** Networks with more wires than this are not compiled. */
+	private static final int MAX_COMPILED_SIZE = 4096;
+	/** The number of network solutions that are kept for replay. */
+	private static final int MAX_SOLUTIONS = 256;
+	/** Solutions are only kept for networks of at least this many wires. */
+	private static final int MIN_SOLUTION_SIZE = 4;
+	/** Solutions are only kept for networks of up to this many wires. */
+	private static final int MAX_SOLUTION_SIZE = 1024;
+	/**
+	 * The neighbors around a wire that are loaded in one go: first
+	 * the direct neighbors, in the order of {@code Directions.ALL},
+	 * then the diagonal neighbors. For each neighbor, the directions
+	 * below hold the step(s) from the wire to get there. For direct
+	 * neighbors the second step is -1. Diagonal neighbors refer to
+	 * the direct neighbors by their index, which is the same as the
+	 * direction to get there.
+	 */
+	private static final int[] GATHER_DIRS = {
+		Directions.WEST , -1, Directions.NORTH, -1, Directions.EAST, -1, Directions.SOUTH, -1, Directions.DOWN, -1, Directions.UP, -1,
+		Directions.WEST , Directions.DOWN , Directions.NORTH, Directions.DOWN , Directions.EAST , Directions.DOWN , Directions.SOUTH, Directions.DOWN ,
+		Directions.WEST , Directions.UP   , Directions.NORTH, Directions.UP   , Directions.EAST , Directions.UP   , Directions.SOUTH, Directions.UP   ,
+		Directions.WEST , Directions.NORTH, Directions.NORTH, Directions.EAST , Directions.EAST , Directions.SOUTH, Directions.SOUTH, Directions.WEST
+	};
+	private static final int GATHER_SIZE = GATHER_DIRS.length / 2;
+	/** The x, y and z offsets of the neighbors above. */
+	private static final int[] GATHER_OFFSETS = new int[3 * GATHER_SIZE];
+	
+	static {
+		for (int i = 0; i < GATHER_SIZE; i++) {
+			for (int step = 0; step < 2; step++) {
+				int iDir = GATHER_DIRS[2 * i + step];
+				
+				if (iDir >= 0) {
+					Direction dir = Directions.ALL[iDir];
+					
+					GATHER_OFFSETS[3 * i    ] += dir.getOffsetX();
+					GATHER_OFFSETS[3 * i + 1] += dir.getOffsetY();
+					GATHER_OFFSETS[3 * i + 2] += dir.getOffsetZ();
+				}
+			}
+		}
+	}
+	
+	/** How many power changes are carried out between checks of the time budget. */
+	private static final int SLICE_CHECK_INTERVAL = 64;
+	
 	/*
 	 * While these fields are not strictly necessary, I opted to add
 	 * them with "future proofing" in mind, and to avoid hard-coding
@@ -272,18 +412,102 @@ public class WireHandler {
 	
 	/** All the wires in the network. */
 	private final List<WireNode> network;
-	/** Map of wires and neighboring blocks. */
+	/**
+	 * Map of wires and neighboring blocks. Rather than clearing this
+	 * map after every update, nodes are kept around, so networks that
+	 * are updated often do not need to be rediscovered each time.
+	 * Nodes are dropped when the block they represent changes, and
+	 * nodes that have not been used in a while are evicted once the
+	 * map grows too large.
+	 */
 	private final Long2ObjectMap<Node> nodes;
+	/** The positions of the cached nodes, by chunk. */
+	private final Long2ObjectMap<LongSet> chunkNodes;
 	/** All the power changes that need to happen. */
 	private final Queue<WireNode> powerChanges;
+	/** Used to collect chunk sections when checking wire stability. */
+	private final ChunkSection[] sections;
+	/** Wires that were updated this tick, if updates are coalesced. */
+	private final LongSet pendingUpdates;
+	/** Wires that were placed, broken or updated during a batch. */
+	private final LongSet batchedWires;
+	/** Redstone components that are changing their power output. */
+	private final List<EmitterUpdate> emitterUpdates;
+	/** Statistics on the neighbor checks in {@link #findRoots}, in least recently used order. */
+	private final Long2ObjectLinkedOpenHashMap<ScanRegion> scanRegions;
+	/** Solutions of recent network updates, in least recently used order. */
+	private final Long2ObjectLinkedOpenHashMap<NetworkSolution> solutions;
+	/** The hashes of the wires in the network, used to verify solutions. */
+	private final LongList networkHashes;
+	/** The wires whose power changes are being replayed. */
+	private final List<WireNode> replayWires;
+	/** The wires whose power changes are being recorded. */
+	private final LongLinkedOpenHashSet recordedWires;
+	/** The recorded power changes, as { old power, new power, flow } triples. */
+	private final IntList recordedChanges;
+	/** Used to solve large, flat networks. */
+	private final WireGrid grid;
+	/** Used to load the nodes around a wire in one go. */
+	private final BlockState[] gatheredStates;
+	private final Node[] gatheredNodes;
 	
 	private int rootCount;
-	// Rather than creating new nodes every time a network is updated
-	// we keep a cache of nodes that can be re-used.
-	private Node[] nodeCache;
-	private int nodeCount;
+	/**
+	 * This value is incremented at the start of each update, including
+	 * updates that happen during ongoing power changes. Any information
+	 * a wire holds that is only valid for the duration of one update
+	 * is reset lazily when the wire is first used in a new generation.
+	 */
+	private long generation;
+	/**
+	 * The generation in which the current top-level update started.
+	 * Updates that happen during ongoing power changes share the power
+	 * levels that are still being carried out, so these must only be
+	 * reset for wires last used before this generation.
+	 */
+	private long updateStart;
+	/**
+	 * Incremented whenever cached nodes are evicted, which makes all
+	 * wires find their power sources and connection masks again.
+	 */
+	private long sourceEpoch;
+	/** The number of batches that are currently running. */
+	private int batchDepth;
 	
 	private boolean updatingPower;
+	/** True if power changes ran out of time and are waiting for the next tick. */
+	private boolean paused;
+	/** The time at which the current slice of power changes runs out. */
+	private long sliceEnd;
+	/**
+	 * The fingerprint under which the solution of the current update
+	 * should be stored, or 0 if it should not be stored.
+	 */
+	private long solutionKey;
+	private boolean recording;
+	private boolean recordingValid;
+	/** The generation in which the current recording started. */
+	private long recordingStart;
+	
+	private long coalescedUpdates;
+	private long coalescedSolves;
+	private long gridSolves;
+	private long pausedUpdates;
+	private long resumedSlices;
+	private long isolatedUpdates;
+	private long isolatedTime;
+	
+	private long powerChecks;
+	private long skippedPowerChecks;
+	private long sourcelessPowerChecks;
+	private long cachedConnectionMasks;
+	private long foundConnectionMasks;
+	private long powerOffUpdates;
+	private long powerOffTime;
+	
+	private long neighborScans;
+	private long neighborScanHits;
+	private long neighborScansSkipped;
 	
 	public WireHandler(WireBlock wireBlock, WorldAccess world) {
 		this.wireBlock = wireBlock;
@@ -294,25 +518,117 @@ public class WireHandler {
 		
 		this.network = new ArrayList<>();
 		this.nodes = new Long2ObjectOpenHashMap<>();
+		this.chunkNodes = new Long2ObjectOpenHashMap<>();
 		this.powerChanges = new PowerQueue(this.minPower, this.maxPower);
-		
-		this.nodeCache = new Node[16];
-		this.fillNodeCache(0, 16);
+		this.sections = new ChunkSection[MAX_STABILITY_SECTIONS];
+		this.pendingUpdates = new LongLinkedOpenHashSet();
+		this.batchedWires = new LongLinkedOpenHashSet();
+		this.emitterUpdates = new ArrayList<>();
+		this.scanRegions = new Long2ObjectLinkedOpenHashMap<>();
+		this.solutions = new Long2ObjectLinkedOpenHashMap<>();
+		this.networkHashes = new LongArrayList();
+		this.replayWires = new ArrayList<>();
+		this.recordedWires = new LongLinkedOpenHashSet();
+		this.recordedChanges = new IntArrayList();
+		this.grid = new WireGrid();
+		this.gatheredStates = new BlockState[GATHER_SIZE];
+		this.gatheredNodes = new Node[GATHER_SIZE];
 	}
 	
 	private Node getOrAddNode(BlockPos pos) {
-		return nodes.compute(pos.asLong(), (key, node) -> {
-			if (node == null) {
-				// If there is not yet a node at this position,
-				// retrieve and update one from the cache.
-				return getNextNode(pos);
-			}
-			if (node.invalid) {
-				return revalidateNode(node);
+		long key = pos.asLong();
+		Node node = nodes.get(key);
+		
+		// Reading a block state can cause chunks to load, which in
+		// turn can cause blocks to change and nodes to be dropped
+		// from the map, so the map must not be modified while its
+		// compute method is running.
+		if (node == null) {
+			node = getNextNode(pos);
+			addNode(key, node);
+		} else if (node.invalid) {
+			revalidateNode(node);
+		}
+		
+		return refreshNode(node);
+	}
+	
+	/**
+	 * Same as above, but with the block state at the given position
+	 * already known.
+	 */
+	private Node getOrAddNode(BlockPos pos, BlockState state) {
+		long key = pos.asLong();
+		Node node = nodes.get(key);
+		
+		if (node == null) {
+			node = getNextNode(pos, state);
+			addNode(key, node);
+		} else if (node.invalid) {
+			revalidateNode(node, state);
+		}
+		
+		return refreshNode(node);
+	}
+	
+	/**
+	 * Load the nodes around the given wire that are not cached yet.
+	 * This includes the direct neighbors, which are used to find the
+	 * power the wire receives and whether it should break, as well
+	 * as the diagonal neighbors, which are used to find connections
+	 * to other wires and the power that conductors next to the wire
+	 * receive. All block states are read in one go, straight from
+	 * the chunk sections, rather than one by one through the map.
+	 */
+	private void gatherNeighbors(WireNode wire) {
+		// Removed wires are no longer part of the world, so their
+		// neighbors should not be linked to them.
+		if (wire.removed) {
+			return;
+		}
+		
+		// Usually the neighbors have been cached already.
+		boolean gathered = true;
+		
+		for (int iDir = 0; iDir < Directions.ALL.length; iDir++) {
+			Node neighbor = wire.neighbors[iDir];
+			
+			if (neighbor == null || neighbor.invalid) {
+				gathered = false;
+				break;
 			}
+		}
+		
+		if (gathered) {
+			return;
+		}
+		
+		world.getBlockStates(wire.pos, GATHER_OFFSETS, gatheredStates);
+		
+		for (int i = 0; i < GATHER_SIZE; i++) {
+			BlockPos pos = wire.pos.add(GATHER_OFFSETS[3 * i], GATHER_OFFSETS[3 * i + 1], GATHER_OFFSETS[3 * i + 2]);
+			gatheredNodes[i] = getOrAddNode(pos, gatheredStates[i]);
+		}
+		
+		for (int i = 0; i < GATHER_SIZE; i++) {
+			int iDir1 = GATHER_DIRS[2 * i];
+			int iDir2 = GATHER_DIRS[2 * i + 1];
+			Node node = gatheredNodes[i];
 			
-			return node;
-		});
+			if (iDir2 < 0) {
+				linkNodes(wire, iDir1, node);
+			} else {
+				linkNodes(gatheredNodes[iDir1], iDir2, node);
+				linkNodes(gatheredNodes[iDir2], iDir1, node);
+			}
+		}
+		
+		Arrays.fill(gatheredNodes, null);
+	}
+	
+	private void linkNodes(Node node, int iDir, Node neighbor) {
+		node.neighbors[iDir] = neighbor;
+		neighbor.neighbors[Directions.iOpposite(iDir)] = node;
 	}
 	
 	/**
@@ -337,14 +653,51 @@ public class WireHandler {
 			}
 		}
 		
-		return neighbor;
+		return refreshNode(neighbor);
+	}
+	
+	private void addNode(long key, Node node) {
+		nodes.put(key, node);
+		
+		long chunkKey = ChunkPos.toLong(node.pos.getX() >> 4, node.pos.getZ() >> 4);
+		LongSet positions = chunkNodes.get(chunkKey);
+		
+		if (positions == null) {
+			positions = new LongOpenHashSet();
+			chunkNodes.put(chunkKey, positions);
+		}
+		
+		positions.add(key);
 	}
 	
 	private Node removeNode(BlockPos pos) {
-		return nodes.remove(pos.asLong());
+		Node node = nodes.remove(pos.asLong());
+		
+		if (node != null) {
+			unindexNode(pos);
+		}
+		
+		return node;
+	}
+	
+	/**
+	 * Remove the given position from the index of cached positions
+	 * by chunk.
+	 */
+	private void unindexNode(BlockPos pos) {
+		long chunkKey = ChunkPos.toLong(pos.getX() >> 4, pos.getZ() >> 4);
+		LongSet positions = chunkNodes.get(chunkKey);
+		
+		if (positions != null && positions.remove(pos.asLong()) && positions.isEmpty()) {
+			chunkNodes.remove(chunkKey);
+		}
 	}
 	
 	private Node revalidateNode(Node node) {
+		return revalidateNode(node, node.isWire() ? null : world.getBlockState(node.pos));
+	}
+	
+	private Node revalidateNode(Node node, BlockState state) {
 		node.invalid = false;
 		
 		if (node.isWire()) {
@@ -353,155 +706,1172 @@ public class WireHandler {
 			wire.prepared = false;
 			wire.inNetwork = false;
 		} else {
-			BlockPos pos = node.pos;
-			BlockState state = world.getBlockState(pos);
+			node.update(node.pos, state, false);
+		}
+		
+		return node;
+	}
+	
+	/**
+	 * Mark the given node as used in the current generation. If
+	 * the node is a wire that was last used in a previous update,
+	 * any information that was only valid for that update is
+	 * reset.
+	 */
+	private Node refreshNode(Node node) {
+		if (node.generation != generation) {
+			if (node.isWire()) {
+				WireNode wire = node.asWire();
+				
+				wire.prepared = false;
+				wire.inNetwork = false;
+				
+				if (wire.generation < updateStart) {
+					wire.shouldBreak = false;
+					wire.virtualPower = wire.currentPower;
+					wire.flowIn = 0;
+					wire.flowOut = 0;
+				}
+			}
 			
-			node.update(pos, state, false);
+			node.generation = generation;
 		}
 		
 		return node;
 	}
 	
+	private WireNode refreshWire(WireNode wire) {
+		refreshNode(wire);
+		return wire;
+	}
+	
 	/**
 	 * Check the BlockState that occupies the given position. If it is
-	 * a wire, then create a new WireNode. Otherwise, grab the next
-	 * Node from the cache and update it.
+	 * a wire, then create a new WireNode. Otherwise, create a new
+	 * Node and update it.
 	 */
 	private Node getNextNode(BlockPos pos) {
-		BlockState state = world.getBlockState(pos);
-		
+		return getNextNode(pos, world.getBlockState(pos));
+	}
+	
+	private Node getNextNode(BlockPos pos, BlockState state) {
 		if (wireBlock.isOf(state)) {
 			return new WireNode(wireBlock, world, pos, state);
 		}
 		
-		return getNextNode().update(pos, state, true);
+		return new Node(wireBlock, world).update(pos, state, true);
 	}
 	
 	/**
-	 * Grab the first unused Node from the cache. If all of the cache
-	 * is already in use, increase it in size first.
+	 * This method is called whenever a block changes in the world.
+	 * If a node is cached at the given position, it is dropped or
+	 * revalidated, and any wires around it will have to look for
+	 * their connections again.
 	 */
-	private Node getNextNode() {
-		if (nodeCount == nodeCache.length) {
-			increaseNodeCache();
+	public void onBlockChanged(BlockPos pos, BlockState prevState, BlockState state) {
+		Node node = nodes.get(pos.asLong());
+		
+		// Every block the wire handler has looked at is cached, so
+		// if nothing is cached here, no cached information depends
+		// on the block at this position.
+		if (node == null) {
+			return;
+		}
+		
+		if (node.isWire()) {
+			if (wireBlock.isOf(state)) {
+				// Only the power level or the shape changed, neither of
+				// which affects connections to other wires.
+				WireNode wire = node.asWire();
+				int power = wireBlock.getPower(world, pos, state);
+				
+				// The shape of a wire can be changed by hand, which
+				// affects which blocks it gives power to.
+				if (wireBlock.updatePowerState(world, pos, prevState, power) != state) {
+					wire.connectionEpoch = -1L;
+					discardCompiledNetworks(pos);
+				}
+				
+				// The power of a wire can also be changed outside of the
+				// wire handler, for example through a command. Compiled
+				// networks must then find all their power levels again.
+				if ((!updatingPower || paused) && power != wire.currentPower && wire.compiled != null) {
+					wire.compiled.synced = false;
+				}
+				
+				wire.state = state;
+				wire.currentPower = power;
+				
+				return;
+			}
+			
+			discardNode(pos);
+		} else if (wireBlock.isOf(state)) {
+			discardNode(pos);
+		} else {
+			node.invalid = true;
+		}
+		
+		invalidateConnections(pos);
+		
+		// Wires also keep track of which neighbors could give them
+		// power, which can depend on blocks two steps away.
+		if (prevState.emitsRedstonePower() != state.emitsRedstonePower() || world.isConductor(pos, prevState) != world.isConductor(pos, state)) {
+			invalidatePowerSources(pos);
+		}
+		
+		// Redstone components changing their power output do not
+		// change the topology of nearby networks, so compiled forms
+		// of those networks remain valid.
+		if (prevState.getBlock() != state.getBlock() || world.isConductor(pos, prevState) != world.isConductor(pos, state)) {
+			discardCompiledNetworks(pos);
 		}
 		
-		return nodeCache[nodeCount++];
+		// A wire can lose its support without the block below it
+		// changing type, for example when a trapdoor opens. Compiled
+		// networks only check entries for that, so the network must
+		// be compiled again.
+		Node above = nodes.get(pos.up().asLong());
+		
+		if (above != null && above.isWire()) {
+			discardCompiledNetwork(above.asWire());
+		}
 	}
 	
-	private void increaseNodeCache() {
-		Node[] oldCache = nodeCache;
-		nodeCache = new Node[oldCache.length << 1];
+	/**
+	 * Remove the node at the given position from the map and make
+	 * sure any links to it are cut.
+	 */
+	private Node discardNode(BlockPos pos) {
+		Node node = removeNode(pos);
 		
-		for (int index = 0; index < oldCache.length; index++) {
-			nodeCache[index] = oldCache[index];
+		if (node != null) {
+			node.invalid = true;
 		}
 		
-		fillNodeCache(oldCache.length, nodeCache.length);
+		return node;
 	}
 	
-	private void fillNodeCache(int start, int end) {
-		for (int index = start; index < end; index++) {
-			nodeCache[index] = new Node(wireBlock, world);
+	/**
+	 * Connections between wires depend on the blocks directly
+	 * next to them, so when a block changes, the connections of
+	 * any wires around it must be found again.
+	 */
+	private void invalidateConnections(BlockPos pos) {
+		int x = pos.getX();
+		int y = pos.getY();
+		int z = pos.getZ();
+		
+		for (int dx = -1; dx <= 1; dx++) {
+			for (int dy = -1; dy <= 1; dy++) {
+				for (int dz = -1; dz <= 1; dz++) {
+					Node node = nodes.get(BlockPos.asLong(x + dx, y + dy, z + dz));
+					
+					if (node != null && node.isWire()) {
+						WireNode wire = node.asWire();
+						
+						wire.connections.invalid = true;
+						wire.sourceEpoch = -1L;
+						wire.connectionEpoch = -1L;
+					}
+				}
+			}
 		}
 	}
 	
 	/**
-	 * This method is called whenever a redstone wire receives a block
-	 * update.
+	 * A wire can receive power from a redstone component next to a
+	 * conductor next to it, so when a block changes whether it is a
+	 * redstone component or a conductor, wires up to two steps away
+	 * must find their power sources again. The same goes for the
+	 * entries of compiled networks, so those networks are discarded.
 	 */
-	public void onWireUpdated(BlockPos pos) {
-		invalidateNodes();
-		findRoots(pos, true);
-		tryUpdatePower();
+	private void invalidatePowerSources(BlockPos pos) {
+		for (Direction dir : Directions.ALL) {
+			BlockPos side = pos.offset(dir);
+			Node node = nodes.get(side.asLong());
+			
+			if (node == null) {
+				continue;
+			}
+			if (node.isWire()) {
+				node.asWire().sourceEpoch = -1L;
+				discardCompiledNetwork(node.asWire());
+				continue;
+			}
+			
+			for (Direction sideDir : Directions.ALL) {
+				Node neighbor = nodes.get(side.offset(sideDir).asLong());
+				
+				if (neighbor != null && neighbor.isWire()) {
+					neighbor.asWire().sourceEpoch = -1L;
+					discardCompiledNetwork(neighbor.asWire());
+				}
+			}
+		}
 	}
 	
 	/**
-	 * This method is called whenever a redstone wire is placed.
+	 * Discard the compiled forms of networks with wires at or next to
+	 * the given position.
 	 */
-	public void onWireAdded(BlockPos pos) {
-		invalidateNodes();
-		findRoots(pos, false);
-		tryUpdatePower();
+	private void discardCompiledNetworks(BlockPos pos) {
+		int x = pos.getX();
+		int y = pos.getY();
+		int z = pos.getZ();
+		
+		for (int dx = -1; dx <= 1; dx++) {
+			for (int dy = -1; dy <= 1; dy++) {
+				for (int dz = -1; dz <= 1; dz++) {
+					Node node = nodes.get(BlockPos.asLong(x + dx, y + dy, z + dz));
+					
+					if (node != null && node.isWire()) {
+						discardCompiledNetwork(node.asWire());
+					}
+				}
+			}
+		}
+	}
+	
+	private void discardCompiledNetwork(WireNode wire) {
+		if (wire.compiled != null) {
+			wire.compiled.valid = false;
+			wire.compiled = null;
+		}
 	}
 	
 	/**
-	 * This method is called whenever a redstone wire is broken.
+	 * Compile the network the wire at the given position is part of,
+	 * if it has not been compiled already. Wires are collected by
+	 * following connections in both directions, so the compiled
+	 * network includes all wires that can power each other, not just
+	 * those that changed power.
 	 */
-	public void onWireRemoved(BlockPos pos) {
-		Node node = removeNode(pos);
-		WireNode wire;
+	private void tryCompileNetwork(BlockPos pos) {
+		Node node = nodes.get(pos.asLong());
 		
-		if (node == null || !node.isWire()) {
-			wire = new WireNode(wireBlock, world, pos, wireBlock.asBlock().getDefaultState());
-		} else {
-			wire = node.asWire();
+		if (node == null || node.invalid || !node.isWire()) {
+			return;
+		}
+		
+		WireNode root = node.asWire();
+		
+		if (root.compiled != null && (root.compiled.valid || root.compiled == CompiledNetwork.UNCOMPILABLE)) {
+			return;
+		}
+		
+		List<WireNode> wires = new ArrayList<>();
+		Long2IntMap indices = new Long2IntOpenHashMap();
+		IntArrayList entries = new IntArrayList();
+		
+		wires.add(root);
+		indices.put(root.pos.asLong(), 0);
+		
+		for (int index = 0; index < wires.size(); index++) {
+			WireNode wire = refreshWire(wires.get(index));
 			
-			// If this field is set to 'true', the removal of this
-			// wire was part of already ongoing power changes, so
-			// we can exit early here.
-			if (updatingPower && wire.shouldBreak) {
+			if (wire.connections.invalid) {
+				wireBlock.findWireConnections(wire, this::getNeighbor);
+			}
+			if (isEntry(wire)) {
+				entries.add(index);
+			}
+			
+			for (int c = 0; c < wire.connections.count; c++) {
+				WireNode neighbor = wire.connections.all[c].wire;
+				long key = neighbor.pos.asLong();
+				
+				if (!indices.containsKey(key)) {
+					indices.put(key, wires.size());
+					wires.add(neighbor);
+				}
+			}
+			
+			if (wires.size() > MAX_COMPILED_SIZE) {
+				for (int i = 0; i < wires.size(); i++) {
+					wires.get(i).compiled = CompiledNetwork.UNCOMPILABLE;
+				}
+				
 				return;
 			}
 		}
 		
-		wire.invalid = true;
-		wire.removed = true;
+		CompiledNetwork compiled = new CompiledNetwork(wires, indices, entries, (maxPower - minPower) / powerStep, AlternateCurrentMod.parallelCompile);
 		
-		invalidateNodes();
-		tryAddRoot(wire);
-		tryUpdatePower();
+		for (int index = 0; index < wires.size(); index++) {
+			wires.get(index).compiled = compiled;
+		}
 	}
 	
 	/**
-	 * The nodes map is a snapshot of the state of the world. It
-	 * becomes invalid when power changes are carried out, since
-	 * the block and shape updates can lead to block changes. If
-	 * these block changes cause the network to be updated again
-	 * every node must be invalidated, and revalidated before it
-	 * is used again. This ensures the power calculations of the
-	 * network are accurate.
+	 * Check if the given wire can receive power from outside its
+	 * network. This is the case if it is next to a redstone
+	 * component, or next to a conductor that is next to a redstone
+	 * component.
 	 */
-	private void invalidateNodes() {
-		if (updatingPower && !nodes.isEmpty()) {
-			Iterator<Entry<Node>> it = Long2ObjectMaps.fastIterator(nodes);
+	private boolean isEntry(WireNode wire) {
+		for (int iDir = 0; iDir < Directions.ALL.length; iDir++) {
+			Node neighbor = getNeighbor(wire, iDir);
 			
-			while (it.hasNext()) {
-				Entry<Node> entry = it.next();
-				Node node = entry.getValue();
-				
-				node.invalid = true;
+			if (neighbor.isWire()) {
+				continue;
+			}
+			
+			if (neighbor.isRedstoneComponent() || (neighbor.isConductor() && hasRedstoneAround(neighbor, Directions.iOpposite(iDir)))) {
+				return true;
 			}
 		}
+		
+		return false;
 	}
 	
 	/**
-	 * Look for wires at and around the given position that are
-	 * in an invalid state and require power changes. These wires
-	 * are called 'roots' because it is only when these wires
-	 * change power level that neighboring wires must adjust as
-	 * well.
-	 * 
-	 * <p>
-	 * While it is strictly only necessary to check the wire at
-	 * the given position, if that wire is part of a network, it
-	 * is beneficial to check its surroundings for other wires
-	 * that require power changes. This is because a network can
-	 * receive power at multiple points. Consider the following
-	 * setup:
+	 * Update the power of the network the wire at the given position
+	 * is part of, using its compiled form. Only the external power of
+	 * the entries of the network needs to be checked. The new power
+	 * levels of the wires then follow from their distances to those
+	 * entries. Only the part of the network that entries whose power
+	 * changed can reach is looked at, and only wires whose power level
+	 * changes are touched.
 	 * 
 	 * <p>
-	 * (top-down view, W = wire, L = lever, _ = air/other)
-	 * <br> {@code _ _ W _ _ }
-	 * <br> {@code _ W W W _ }
-	 * <br> {@code W W L W W }
-	 * <br> {@code _ W W W _ }
-	 * <br> {@code _ _ W _ _ }
+	 * Power changes are carried out in order of decreasing power
+	 * level, rather than following the flow of power through the
+	 * network as a regular update would. This is why compiled
+	 * networks are opt-in.
 	 * 
-	 * <p>
-	 * The lever powers four wires in the network at once. If this
-	 * is identified correctly, the entire network can (un)power
-	 * at once. While it is not practical to cover every possible
+	 * @return whether the compiled form of the network was used.
+	 */
+	private boolean tryUpdateCompiled(BlockPos pos) {
+		Node node = nodes.get(pos.asLong());
+		
+		if (node == null || node.invalid || !node.isWire()) {
+			return false;
+		}
+		
+		CompiledNetwork compiled = node.asWire().compiled;
+		
+		if (compiled == null || !compiled.valid) {
+			return false;
+		}
+		
+		// The updated wire may have lost its support, even if it is
+		// not an entry of the network.
+		if (world.shouldBreak(pos, node.state)) {
+			discardCompiledNetwork(node.asWire());
+			return false;
+		}
+		
+		invalidateNodes();
+		
+		for (int e = 0; e < compiled.entries.length; e++) {
+			WireNode wire = refreshWire(compiled.wires[compiled.entries[e]]);
+			
+			// A wire that should break changes the topology of the
+			// network, which the compiled form cannot deal with.
+			if (world.shouldBreak(wire.pos, wire.state)) {
+				discardCompiledNetwork(wire);
+				return false;
+			}
+			
+			wire.externalPower = getExternalPower(wire);
+		}
+		
+		IntArrayList affected = new IntArrayList();
+		
+		// If the power levels of the network were changed by other
+		// updates, they must all be found again. Otherwise, only the
+		// parts of the network that are reachable from entries whose
+		// external power changed need to be looked at.
+		if (compiled.synced) {
+			compiled.updatePowers(minPower, powerStep, affected);
+			IntArrays.quickSort(affected.elements(), 0, affected.size());
+		} else {
+			compiled.findPowers(minPower, powerStep);
+			compiled.synced = true;
+			
+			for (int index = 0; index < compiled.size(); index++) {
+				affected.add(index);
+			}
+		}
+		
+		for (int power = maxPower; power >= minPower; power--) {
+			for (int i = 0; i < affected.size(); i++) {
+				int index = affected.getInt(i);
+				
+				if (compiled.powers[index] != power) {
+					continue;
+				}
+				
+				WireNode wire = refreshWire(compiled.wires[index]);
+				
+				if (wire.currentPower == power) {
+					continue;
+				}
+				
+				wire.virtualPower = power;
+				wire.flowIn = compiled.findFlowIn(index, powerStep);
+				findPowerFlow(wire);
+				
+				replayWires.add(wire);
+			}
+		}
+		
+		if (!replayWires.isEmpty()) {
+			long updateGeneration = generation;
+			carryOutPowerChanges(true);
+			
+			// If other updates happened while the power changes were
+			// carried out, the power levels of the network may no
+			// longer match the compiled form.
+			compiled.synced = (generation == updateGeneration);
+		}
+		
+		evictNodes();
+		
+		return true;
+	}
+	
+	/**
+	 * If the map of nodes has grown too large, evict nodes that
+	 * have not been used in a while. If that is not enough, the
+	 * entire map is cleared.
+	 */
+	private void evictNodes() {
+		if (nodes.size() <= MAX_CACHED_NODES) {
+			return;
+		}
+		
+		Iterator<Entry<Node>> it = Long2ObjectMaps.fastIterator(nodes);
+		List<BlockPos> evictedWires = new ArrayList<>();
+		
+		// Changes to evicted nodes go unnoticed, so wires must find
+		// their power sources and connection masks again.
+		sourceEpoch++;
+		
+		while (it.hasNext()) {
+			Entry<Node> entry = it.next();
+			Node node = entry.getValue();
+			
+			if (generation - node.generation > MAX_NODE_AGE) {
+				it.remove();
+				unindexNode(node.pos);
+				node.invalid = true;
+				
+				if (node.isWire()) {
+					evictedWires.add(node.pos);
+					discardCompiledNetwork(node.asWire());
+				}
+			}
+		}
+		
+		if (nodes.size() > MAX_CACHED_NODES) {
+			it = Long2ObjectMaps.fastIterator(nodes);
+			
+			while (it.hasNext()) {
+				Node node = it.next().getValue();
+				node.invalid = true;
+				
+				if (node.isWire()) {
+					discardCompiledNetwork(node.asWire());
+				}
+			}
+			
+			nodes.clear();
+			chunkNodes.clear();
+		} else {
+			for (int index = 0; index < evictedWires.size(); index++) {
+				invalidateConnections(evictedWires.get(index));
+			}
+		}
+	}
+	
+	/**
+	 * This method is called when a chunk is unloaded. Changes made to
+	 * the chunk while it is unloaded go unnoticed, so the nodes in it
+	 * are dropped, and wires around it must find their connections,
+	 * power sources and connection masks again.
+	 */
+	public void onChunkUnloaded(int chunkX, int chunkZ) {
+		LongSet positions = chunkNodes.remove(ChunkPos.toLong(chunkX, chunkZ));
+		
+		if (positions == null) {
+			return;
+		}
+		
+		LongIterator it = positions.iterator();
+		List<BlockPos> edgeNodes = new ArrayList<>();
+		boolean dropped = false;
+		
+		while (it.hasNext()) {
+			Node node = nodes.remove(it.nextLong());
+			
+			if (node == null) {
+				continue;
+			}
+			
+			BlockPos pos = node.pos;
+			node.invalid = true;
+			dropped = true;
+			
+			if (node.isWire()) {
+				discardCompiledNetwork(node.asWire());
+			}
+			
+			// Only wires just outside the chunk can be connected to
+			// the nodes that were dropped.
+			int x = pos.getX() & 15;
+			int z = pos.getZ() & 15;
+			
+			if (x == 0 || x == 15 || z == 0 || z == 15) {
+				edgeNodes.add(pos);
+			}
+		}
+		
+		if (dropped) {
+			sourceEpoch++;
+			
+			for (int index = 0; index < edgeNodes.size(); index++) {
+				BlockPos pos = edgeNodes.get(index);
+				
+				invalidateConnections(pos);
+				discardCompiledNetworks(pos);
+			}
+		}
+	}
+	
+	/**
+	 * Determine the weak power the wire at the given position gives
+	 * to the block in the given direction. This is the same as what
+	 * the wire block itself would give, but the directions the wire
+	 * points in are cached, rather than found from the blocks around
+	 * it every time.
+	 */
+	public int getWeakPowerFrom(BlockPos pos, BlockState state, Direction dir) {
+		if (dir == Direction.DOWN) {
+			return minPower;
+		}
+		
+		int power = wireBlock.getPower(world, pos, state);
+		
+		if (power <= minPower || dir == Direction.UP) {
+			return power;
+		}
+		
+		// Directions are backwards in Minecraft, so we must check
+		// whether the wire points in the opposite direction.
+		int iOpp = Directions.index(dir.getOpposite());
+		
+		return ((getConnectionMask(pos, state) & (1 << iOpp)) != 0) ? power : minPower;
+	}
+	
+	private int getConnectionMask(BlockPos pos, BlockState state) {
+		Node node = nodes.get(pos.asLong());
+		
+		if (node == null || node.invalid || !node.isWire() || node.state != state) {
+			return wireBlock.findConnectionMask(world, pos, state);
+		}
+		
+		WireNode wire = node.asWire();
+		
+		if (wire.connectionEpoch == sourceEpoch) {
+			cachedConnectionMasks++;
+			return wire.connectionMask;
+		}
+		
+		int mask = wireBlock.findConnectionMask(world, pos, state);
+		foundConnectionMasks++;
+		
+		// The mask depends on the blocks next to the wire and the
+		// blocks above and below those. It can only be kept if all
+		// of those are cached, or changes to them go unnoticed.
+		if (isNeighborhoodCached(wire)) {
+			wire.connectionMask = mask;
+			wire.connectionEpoch = sourceEpoch;
+		}
+		
+		return mask;
+	}
+	
+	private boolean isNeighborhoodCached(WireNode wire) {
+		for (int iDir = 0; iDir < Directions.ALL.length; iDir++) {
+			Node neighbor = wire.neighbors[iDir];
+			
+			if (neighbor == null || neighbor.invalid) {
+				return false;
+			}
+		}
+		for (int iDir = 0; iDir < Directions.HORIZONTAL.length; iDir++) {
+			Node side = wire.neighbors[iDir];
+			Node below = side.neighbors[Directions.DOWN];
+			Node above = side.neighbors[Directions.UP];
+			
+			if (below == null || below.invalid || above == null || above.invalid) {
+				return false;
+			}
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * The number of weak power queries against wires that used a
+	 * cached connection mask.
+	 */
+	public long getCachedConnectionMasks() {
+		return cachedConnectionMasks;
+	}
+	
+	/**
+	 * The number of weak power queries against wires that had to find
+	 * the connection mask from the blocks around the wire.
+	 */
+	public long getFoundConnectionMasks() {
+		return foundConnectionMasks;
+	}
+	
+	/**
+	 * This method is called whenever a redstone wire receives a block
+	 * update.
+	 */
+	public void onWireUpdated(BlockPos pos, BlockPos fromPos, Block fromBlock) {
+		if (!canAffectWire(pos, fromPos, fromBlock)) {
+			return;
+		}
+		if (!updatingPower && isStable(pos, fromBlock)) {
+			return;
+		}
+		
+		if (isBatching()) {
+			addToBatch(pos);
+			return;
+		}
+		if (AlternateCurrentMod.coalesceUpdates && !updatingPower) {
+			pendingUpdates.add(pos.asLong());
+			return;
+		}
+		if (tryHandleEmitterUpdate(fromPos, fromBlock)) {
+			return;
+		}
+		if (AlternateCurrentMod.compileNetworks && !updatingPower && tryUpdateCompiled(pos)) {
+			markStable(pos);
+			return;
+		}
+		
+		invalidateNodes();
+		findRoots(pos, fromPos, true);
+		tryUpdatePower();
+		
+		if (!updatingPower) {
+			markStable(pos);
+			
+			if (AlternateCurrentMod.compileNetworks) {
+				tryCompileNetwork(pos);
+			}
+		}
+	}
+	
+	/**
+	 * If updates are coalesced, wires that receive block updates
+	 * outside of ongoing power changes are not updated right away.
+	 * Instead, they are collected and updated at once at the end of
+	 * the tick, so that a network that is updated many times within
+	 * a tick only has its power changes carried out once.
+	 */
+	public void flushUpdates() {
+		if (pendingUpdates.isEmpty()) {
+			return;
+		}
+		
+		invalidateNodes();
+		
+		LongIterator it = pendingUpdates.iterator();
+		// The number of collected wires that would have caused power
+		// changes if they had been updated right away.
+		int rootedUpdates = 0;
+		
+		while (it.hasNext()) {
+			BlockPos pos = BlockPos.fromLong(it.nextLong());
+			
+			// The chunk may have unloaded since the update came in,
+			// and it should not be loaded again just for this.
+			if (!world.isLoaded(pos)) {
+				it.remove();
+				continue;
+			}
+			
+			int roots = rootCount;
+			findRoots(pos, null, true);
+			
+			if (rootCount > roots) {
+				rootedUpdates++;
+			}
+		}
+		
+		if (rootedUpdates > 0) {
+			coalescedUpdates += rootedUpdates;
+			coalescedSolves += rootedUpdates - 1;
+		}
+		
+		tryUpdatePower();
+		
+		// If the power changes ran out of time, they are not done
+		// yet, so the wires cannot be marked as stable.
+		if (!updatingPower) {
+			it = pendingUpdates.iterator();
+			
+			while (it.hasNext()) {
+				markStable(BlockPos.fromLong(it.nextLong()));
+			}
+		}
+		
+		pendingUpdates.clear();
+	}
+	
+	/**
+	 * The number of coalesced wire updates that led to power changes.
+	 */
+	public long getCoalescedUpdates() {
+		return coalescedUpdates;
+	}
+	
+	/**
+	 * The number of network solves that were avoided by coalescing.
+	 * Every coalesced wire update that leads to power changes would
+	 * have needed its own solve, but all of them are solved at once
+	 * at the end of the tick.
+	 */
+	public long getCoalescedSolves() {
+		return coalescedSolves;
+	}
+	
+	/**
+	 * This method is called when a redstone component is about to
+	 * change its power output. Until {@link #endEmitterUpdate} is
+	 * called, block updates this component emits to wires are handled
+	 * at once: the first such update finds all the wires the component
+	 * powers, either directly or through conductors, and carries out
+	 * their power changes together. Any further updates to wires from
+	 * this component are ignored, since those wires have already been
+	 * dealt with.
+	 */
+	public void beginEmitterUpdate(BlockPos pos, Block block) {
+		emitterUpdates.add(new EmitterUpdate(pos.toImmutable(), block));
+	}
+	
+	/**
+	 * This method is called when a redstone component has finished
+	 * changing its power output.
+	 */
+	public void endEmitterUpdate() {
+		if (!emitterUpdates.isEmpty()) {
+			emitterUpdates.remove(emitterUpdates.size() - 1);
+		}
+	}
+	
+	/**
+	 * Clear any emitter updates that were not ended properly.
+	 */
+	public void clearEmitterUpdates() {
+		emitterUpdates.clear();
+	}
+	
+	/**
+	 * Check if the given block update was emitted by a redstone
+	 * component that is changing its power output, and if so, find
+	 * and update all the wires it powers.
+	 * 
+	 * @return whether the block update was handled.
+	 */
+	private boolean tryHandleEmitterUpdate(BlockPos fromPos, Block fromBlock) {
+		if (emitterUpdates.isEmpty()) {
+			return false;
+		}
+		
+		EmitterUpdate update = emitterUpdates.get(emitterUpdates.size() - 1);
+		
+		// Components also update the neighbors of the block they are
+		// attached to, so updates can come from next to them too.
+		if (update.block != fromBlock || update.pos.getManhattanDistance(fromPos) > 1) {
+			return false;
+		}
+		
+		if (!update.handled) {
+			update.handled = true;
+			
+			invalidateNodes();
+			
+			Node node = getOrAddNode(update.pos);
+			
+			if (!node.isWire() && node.isRedstoneComponent()) {
+				findRootsAroundEmitter(node);
+			}
+			
+			tryUpdatePower();
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * Determine whether a block update from the given source can
+	 * affect the power level or the connections of the wire at the
+	 * given position.
+	 * 
+	 * <p>
+	 * Any change directly next to a wire can affect it. Further out,
+	 * only two kinds of blocks matter: redstone components, which
+	 * can power the wire through a conductor next to it, and other
+	 * wires, which can connect to it diagonally. Other changes, such
+	 * as a non-conductor changing diagonally, can be ignored.
+	 * 
+	 * <p>
+	 * During ongoing power changes, updates from wires in the same
+	 * network are ignored as well, since the power changes in that
+	 * network are being carried out by the wire handler. Outside of
+	 * those, a connected wire may have changed power some other way,
+	 * for example through a command, so its updates must be handled.
+	 */
+	private boolean canAffectWire(BlockPos pos, BlockPos fromPos, Block fromBlock) {
+		if (updatingPower && fromBlock == wireBlock.asBlock()) {
+			BlockState state = getBlockState(fromPos);
+			
+			if (wireBlock.isOf(state) && isConnected(pos, fromPos)) {
+				return false;
+			}
+		}
+		
+		int distance = pos.getManhattanDistance(fromPos);
+		
+		if (distance <= 1) {
+			return true;
+		}
+		
+		// Block updates are emitted with the block that was there
+		// before the change, so the current block must be checked
+		// as well.
+		if (fromBlock == wireBlock.asBlock() || fromBlock.getDefaultState().emitsRedstonePower()) {
+			return true;
+		}
+		
+		BlockState state = getBlockState(fromPos);
+		return wireBlock.isOf(state) || state.emitsRedstonePower();
+	}
+	
+	/**
+	 * Check if the cached wire at the first position has a connection
+	 * to a wire at the second position.
+	 */
+	private boolean isConnected(BlockPos pos, BlockPos otherPos) {
+		Node node = nodes.get(pos.asLong());
+		
+		if (node == null || !node.isWire()) {
+			return false;
+		}
+		
+		WireConnectionManager connections = node.asWire().connections;
+		
+		if (connections.invalid) {
+			return false;
+		}
+		
+		for (int c = 0; c < connections.count; c++) {
+			WireNode wire = connections.all[c].wire;
+			
+			if (!wire.removed && wire.pos.equals(otherPos)) {
+				return true;
+			}
+		}
+		
+		return false;
+	}
+	
+	/**
+	 * Retrieve the block state at the given position, using the
+	 * cached node if there is a valid one.
+	 */
+	private BlockState getBlockState(BlockPos pos) {
+		Node node = nodes.get(pos.asLong());
+		return (node == null || node.invalid) ? world.getBlockState(pos) : node.state;
+	}
+	
+	/**
+	 * Check whether the wire at the given position was found to be
+	 * stable and none of the blocks around it have changed since.
+	 * Such a wire does not need to look for power changes, as its
+	 * surroundings are exactly as they were when it last did.
+	 * 
+	 * <p>
+	 * Some blocks store their power levels in block entities, so
+	 * changes to their power levels do not show up as block
+	 * changes. Updates from those blocks are never rejected.
+	 */
+	private boolean isStable(BlockPos pos, Block fromBlock) {
+		if (fromBlock instanceof BlockEntityProvider) {
+			return false;
+		}
+		
+		Node node = nodes.get(pos.asLong());
+		
+		if (node == null || !node.isWire()) {
+			return false;
+		}
+		
+		WireNode wire = node.asWire();
+		
+		if (wire.stableSections == null) {
+			return false;
+		}
+		
+		int count = world.getSections(pos, STABILITY_RADIUS, sections);
+		
+		if (count != wire.stableSectionCount) {
+			return false;
+		}
+		
+		for (int index = 0; index < count; index++) {
+			ChunkSection section = sections[index];
+			
+			if (section != wire.stableSections[index] || getModCount(section) != wire.stableModCounts[index]) {
+				return false;
+			}
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * Record the modification counts of the chunk sections around
+	 * the wire at the given position. This method should only be
+	 * called once all power changes have been carried out.
+	 */
+	private void markStable(BlockPos pos) {
+		Node node = nodes.get(pos.asLong());
+		
+		if (node == null || !node.isWire()) {
+			return;
+		}
+		
+		WireNode wire = node.asWire();
+		
+		if (wire.stableSections == null) {
+			wire.stableSections = new ChunkSection[MAX_STABILITY_SECTIONS];
+			wire.stableModCounts = new int[MAX_STABILITY_SECTIONS];
+		}
+		
+		int count = world.getSections(pos, STABILITY_RADIUS, wire.stableSections);
+		
+		for (int index = 0; index < count; index++) {
+			wire.stableModCounts[index] = getModCount(wire.stableSections[index]);
+		}
+		
+		wire.stableSectionCount = count;
+	}
+	
+	private static int getModCount(ChunkSection section) {
+		return section == null ? 0 : ((IChunkSection)section).getModCount();
+	}
+	
+	/**
+	 * This method is called whenever a redstone wire is placed.
+	 */
+	public void onWireAdded(BlockPos pos) {
+		// This method is called before the block change is reported
+		// to the wire handler, so the node that was cached here must
+		// be dropped first. The block change will then find the new
+		// wire already in place, so the compiled forms of networks
+		// around it must be discarded here.
+		discardCompiledNetworks(pos);
+		discardNode(pos);
+		invalidateConnections(pos);
+		
+		if (isBatching()) {
+			addToBatch(pos);
+			return;
+		}
+		
+		invalidateNodes();
+		findRoots(pos, null, false);
+		tryUpdatePower();
+	}
+	
+	/**
+	 * This method is called whenever a redstone wire is broken.
+	 */
+	public void onWireRemoved(BlockPos pos) {
+		// The node is removed before the block change is reported to
+		// the wire handler, so the compiled forms of networks around
+		// it must be discarded here.
+		discardCompiledNetworks(pos);
+		
+		Node node = removeNode(pos);
+		WireNode wire;
+		
+		// Any wires connected to this one must look for their
+		// connections again.
+		invalidateConnections(pos);
+		
+		if (node == null || !node.isWire()) {
+			wire = new WireNode(wireBlock, world, pos, wireBlock.asBlock().getDefaultState());
+		} else {
+			wire = refreshWire(node.asWire());
+			
+			// If this field is set to 'true', the removal of this
+			// wire was part of already ongoing power changes, so
+			// we can exit early here.
+			if (updatingPower && wire.shouldBreak) {
+				return;
+			}
+		}
+		
+		if (isBatching()) {
+			addToBatch(pos);
+			return;
+		}
+		
+		invalidateNodes();
+		tryAddRemovedRoot(wire);
+		tryUpdatePower();
+	}
+	
+	/**
+	 * Add a wire that was removed from the world as a root. Its
+	 * removal can cause power changes to any wires it was connected
+	 * to.
+	 */
+	private void tryAddRemovedRoot(WireNode wire) {
+		wire.invalid = true;
+		wire.removed = true;
+		
+		tryAddRoot(refreshWire(wire));
+	}
+	
+	/**
+	 * Start a batch of block changes. Until the batch ends, wires that
+	 * are placed, broken, or updated outside of ongoing power changes
+	 * are only collected. Once the batch ends, the affected networks
+	 * are updated at once. This avoids updating networks over and over
+	 * while they are being built or torn down by bulk edits, such as
+	 * the fill and clone commands and structure placement. Piston
+	 * moves and explosions are only batched if that is turned on,
+	 * since it changes when wires update relative to other blocks.
+	 * 
+	 * <p>
+	 * Batches can be nested. Only when the outermost batch ends are
+	 * the collected wires updated.
+	 */
+	public void beginBatch() {
+		batchDepth++;
+	}
+	
+	/**
+	 * End a batch of block changes. If this was the outermost batch,
+	 * all the wires that were collected during the batch are updated.
+	 */
+	public void endBatch() {
+		if (batchDepth > 0 && --batchDepth == 0) {
+			flushBatch();
+		}
+	}
+	
+	/**
+	 * End any batches that are still running. Batches never span more
+	 * than one tick, so this is called at the end of each world tick,
+	 * in case a batch was not ended properly, for example because an
+	 * exception was thrown.
+	 */
+	public void endBatches() {
+		if (batchDepth > 0) {
+			batchDepth = 0;
+			flushBatch();
+		}
+	}
+	
+	private boolean isBatching() {
+		return batchDepth > 0 && !updatingPower;
+	}
+	
+	private void addToBatch(BlockPos pos) {
+		batchedWires.add(pos.asLong());
+	}
+	
+	/**
+	 * Update all the wires that were collected during a batch. Wires
+	 * that are no longer there are treated as removed.
+	 */
+	private void flushBatch() {
+		if (batchedWires.isEmpty()) {
+			return;
+		}
+		
+		invalidateNodes();
+		
+		LongIterator it = batchedWires.iterator();
+		
+		while (it.hasNext()) {
+			BlockPos pos = BlockPos.fromLong(it.nextLong());
+			Node node = getOrAddNode(pos);
+			
+			if (node.isWire()) {
+				tryAddRoot(node.asWire());
+			} else {
+				tryAddRemovedRoot(new WireNode(wireBlock, world, pos, wireBlock.asBlock().getDefaultState()));
+			}
+		}
+		
+		batchedWires.clear();
+		tryUpdatePower();
+	}
+	
+	/**
+	 * The nodes map is a snapshot of the state of the world. It
+	 * becomes invalid when blocks change, for example when power
+	 * changes are carried out and the block and shape updates lead
+	 * to block changes. The world access reports every block change
+	 * to the wire handler, and only the nodes at those positions are
+	 * invalidated and revalidated before they are used again.
+	 * 
+	 * <p>
+	 * What remains is to discard the information wires hold about
+	 * the previous update. Rather than visiting every node, a new
+	 * generation is started, and wires are refreshed as they are
+	 * used.
+	 */
+	private void invalidateNodes() {
+		generation++;
+		
+		if (!updatingPower) {
+			updateStart = generation;
+		}
+	}
+	
+	/**
+	 * Look for wires at and around the given position that are
+	 * in an invalid state and require power changes. These wires
+	 * are called 'roots' because it is only when these wires
+	 * change power level that neighboring wires must adjust as
+	 * well.
+	 * 
+	 * <p>
+	 * While it is strictly only necessary to check the wire at
+	 * the given position, if that wire is part of a network, it
+	 * is beneficial to check its surroundings for other wires
+	 * that require power changes. This is because a network can
+	 * receive power at multiple points. Consider the following
+	 * setup:
+	 * 
+	 * <p>
+	 * (top-down view, W = wire, L = lever, _ = air/other)
+	 * <br> {@code _ _ W _ _ }
+	 * <br> {@code _ W W W _ }
+	 * <br> {@code W W L W W }
+	 * <br> {@code _ W W W _ }
+	 * <br> {@code _ _ W _ _ }
+	 * 
+	 * <p>
+	 * The lever powers four wires in the network at once. If this
+	 * is identified correctly, the entire network can (un)power
+	 * at once. While it is not practical to cover every possible
 	 * situation where a network is (un)powered from multiple
 	 * points at once, checking for common cases like the one
 	 * described above is relatively straight-forward.
@@ -514,25 +1884,88 @@ public class WireHandler {
 	 * would limit code modifications to the RedstoneWireBlock and
 	 * ServerWorld classes while leaving the performance mostly 
 	 * intact.
+	 * 
+	 * <p>
+	 * If the source of the update is known, only neighbors at or
+	 * next to that source are checked, since the component that
+	 * changed must be there.
+	 * 
+	 * <p>
+	 * If adaptive checks are turned on, the handler keeps track of
+	 * how often these checks find extra roots in each region of the
+	 * world, and stops checking in regions where they rarely do.
+	 * Every so often the checks are done anyway, so that a region
+	 * that has changed can be picked up again. Since this makes the
+	 * outcome of an update depend on earlier updates in the region,
+	 * it is opt-in.
 	 */
-	private void findRoots(BlockPos pos, boolean checkNeighbors) {
+	private void findRoots(BlockPos pos, BlockPos fromPos, boolean checkNeighbors) {
 		Node node = getOrAddNode(pos);
 		
 		if (!node.isWire()) {
 			return; // we should never get here
 		}
 		
-		WireNode wire = node.asWire();
-		tryAddRoot(wire);
+		WireNode wire = node.asWire();
+		tryAddRoot(wire);
+		
+		// If the wire at the given position is not in an invalid
+		// state or is not part of a larger network, we can exit
+		// early.
+		if (!checkNeighbors || !wire.inNetwork) {
+			return;
+		}
+		
+		ScanRegion region = AlternateCurrentMod.adaptiveScans ? getScanRegion(pos) : null;
+		
+		if (region != null && !region.shouldScan()) {
+			neighborScansSkipped++;
+			return;
+		}
+		
+		int roots = rootCount;
+		findNeighborRoots(wire, fromPos);
+		boolean hit = rootCount > roots;
+		
+		if (region != null) {
+			region.recordScan(hit);
+		}
+		
+		neighborScans++;
 		
-		// If the wire at the given position is not in an invalid
-		// state or is not part of a larger network, we can exit
-		// early.
-		if (!checkNeighbors || !wire.inNetwork || wire.connections.count == 0) {
+		if (hit) {
+			neighborScanHits++;
+		}
+	}
+	
+	/**
+	 * Look for other wires that require power changes around the
+	 * neighbors of the given wire.
+	 */
+	private void findNeighborRoots(WireNode wire, BlockPos fromPos) {
+		// If the update came from a redstone component, the wires it
+		// powers can be found by following its fan-out. This catches
+		// parallel lines of wire that are powered by the same
+		// component, even if they are not connected to each other.
+		if (fromPos != null) {
+			Node source = getOrAddNode(fromPos);
+			
+			if (!source.isWire() && source.isRedstoneComponent()) {
+				findRootsAroundEmitter(source);
+				return;
+			}
+		}
+		if (wire.connections.count == 0) {
 			return;
 		}
 		
+		BlockPos pos = wire.pos;
+		
 		for (int iDir : DEFAULT_FULL_UPDATE_ORDER) {
+			if (fromPos != null && !isNextTo(pos, Directions.ALL[iDir], fromPos)) {
+				continue;
+			}
+			
 			Node neighbor = getNeighbor(wire, iDir);
 			
 			if (neighbor.isConductor()) {
@@ -547,6 +1980,92 @@ public class WireHandler {
 		}
 	}
 	
+	private ScanRegion getScanRegion(BlockPos pos) {
+		int x = pos.getX() >> SCAN_REGION_SHIFT;
+		int z = pos.getZ() >> SCAN_REGION_SHIFT;
+		long key = ((long)x & 0xFFFFFFFFL) | (((long)z & 0xFFFFFFFFL) << 32);
+		
+		ScanRegion region = scanRegions.getAndMoveToLast(key);
+		
+		if (region == null) {
+			region = new ScanRegion();
+			scanRegions.putAndMoveToLast(key, region);
+			
+			if (scanRegions.size() > MAX_SCAN_REGIONS) {
+				scanRegions.removeFirst();
+			}
+		}
+		
+		return region;
+	}
+	
+	/**
+	 * The number of times the neighbor checks in {@link #findRoots}
+	 * were done.
+	 */
+	public long getNeighborScans() {
+		return neighborScans;
+	}
+	
+	/**
+	 * The number of times the neighbor checks in {@link #findRoots}
+	 * found extra roots.
+	 */
+	public long getNeighborScanHits() {
+		return neighborScanHits;
+	}
+	
+	/**
+	 * The number of times the neighbor checks in {@link #findRoots}
+	 * were skipped because they rarely find extra roots in that
+	 * region.
+	 */
+	public long getNeighborScansSkipped() {
+		return neighborScansSkipped;
+	}
+	
+	/**
+	 * The number of regions in which the neighbor checks in
+	 * {@link #findRoots} are currently turned off.
+	 */
+	public int getDisabledScanRegions() {
+		int count = 0;
+		
+		for (ScanRegion region : scanRegions.values()) {
+			if (!region.enabled) {
+				count++;
+			}
+		}
+		
+		return count;
+	}
+	
+	/**
+	 * Check if the neighbor of the given position in the given
+	 * direction is at or next to the other position.
+	 */
+	private static boolean isNextTo(BlockPos pos, Direction dir, BlockPos otherPos) {
+		int dx = Math.abs(pos.getX() + dir.getOffsetX() - otherPos.getX());
+		int dy = Math.abs(pos.getY() + dir.getOffsetY() - otherPos.getY());
+		int dz = Math.abs(pos.getZ() + dir.getOffsetZ() - otherPos.getZ());
+		
+		return dx + dy + dz <= 1;
+	}
+	
+	/**
+	 * Find all wires that are powered by the redstone component at
+	 * the given position, either directly or through conductors.
+	 */
+	private void findRootsAroundEmitter(Node node) {
+		int fanOut = world.getPowerFanOut(node.pos, node.state);
+		
+		for (int iDir : DEFAULT_FULL_UPDATE_ORDER) {
+			if ((fanOut & (1 << iDir)) != 0) {
+				findRootsNextToRedstone(node, iDir);
+			}
+		}
+	}
+	
 	/**
 	 * Find redstone components around the given node that can
 	 * strongly power that node, and then search for wires that
@@ -567,32 +2086,44 @@ public class WireHandler {
 	 * power changes.
 	 */
 	private void findRootsAroundRedstone(Node node, int except) {
+		int fanOut = world.getPowerFanOut(node.pos, node.state);
+		
 		for (int iDir : Directions.EXCEPT[except]) {
-			// Directions are backwards in Minecraft, so we must check
-			// for power emitted in the opposite direction that we are
-			// interested in.
-			int iOpp = Directions.iOpposite(iDir);
-			Direction opp = Directions.ALL[iOpp];
-			
-			boolean weak = world.emitsWeakPowerTo(node.pos, node.state, opp);
-			boolean strong = world.emitsStrongPowerTo(node.pos, node.state, opp);
-			
-			// If the redstone component does not emit any power in
-			// this direction, move on to the next direction.
-			if (!weak && !strong) {
-				continue;
-			}
-			
-			Node neighbor = getNeighbor(node, iDir);
-			
-			if (weak && neighbor.isWire()) {
-				tryAddRoot(neighbor.asWire());
-			} else if (strong && neighbor.isConductor()) {
-				findRootsAround(neighbor, iOpp);
+			if ((fanOut & (1 << iDir)) != 0) {
+				findRootsNextToRedstone(node, iDir);
 			}
 		}
 	}
 	
+	/**
+	 * Find wires next to the given redstone component in the given
+	 * direction that require power changes.
+	 */
+	private void findRootsNextToRedstone(Node node, int iDir) {
+		// Directions are backwards in Minecraft, so we must check
+		// for power emitted in the opposite direction that we are
+		// interested in.
+		int iOpp = Directions.iOpposite(iDir);
+		Direction opp = Directions.ALL[iOpp];
+		
+		boolean weak = world.emitsWeakPowerTo(node.pos, node.state, opp);
+		boolean strong = world.emitsStrongPowerTo(node.pos, node.state, opp);
+		
+		// If the redstone component does not emit any power in
+		// this direction, there is nothing to look for.
+		if (!weak && !strong) {
+			return;
+		}
+		
+		Node neighbor = getNeighbor(node, iDir);
+		
+		if (weak && neighbor.isWire()) {
+			tryAddRoot(neighbor.asWire());
+		} else if (strong && neighbor.isConductor()) {
+			findRootsAround(neighbor, iOpp);
+		}
+	}
+	
 	/**
 	 * Look for wires around the given node that require power
 	 * changes.
@@ -654,18 +2185,72 @@ public class WireHandler {
 		wire.prepared = true;
 		wire.inNetwork = false;
 		
+		gatherNeighbors(wire);
+		
 		if (!wire.removed && !wire.shouldBreak && world.shouldBreak(wire.pos, wire.state)) {
 			wire.shouldBreak = true;
 		}
 		
 		wire.virtualPower = wire.externalPower = (wire.removed || wire.shouldBreak) ? minPower : getExternalPower(wire);
-		wireBlock.findWireConnections(wire, this::getNeighbor);
+		
+		// Connections are cached until a block around the wire changes.
+		if (wire.connections.invalid) {
+			wireBlock.findWireConnections(wire, this::getNeighbor);
+		}
+	}
+	
+	/**
+	 * Check if the power the given wire receives from connected wires
+	 * is exactly its current power level. This assumes the wire does
+	 * not receive more power from non-wire components, which holds
+	 * unless a change next to it has not been handled yet. In that
+	 * case the wire will receive its own update.
+	 */
+	private boolean isHeldByWires(WireNode wire) {
+		if (wire.removed || wire.shouldBreak) {
+			return false;
+		}
+		// Connections that were invalidated during this update may no
+		// longer exist, so they cannot be relied on.
+		if (wire.connections.invalid) {
+			return false;
+		}
+		
+		int power = minPower;
+		
+		for (int c = 0; c < wire.connections.count; c++) {
+			WireConnection connection = wire.connections.all[c];
+			
+			if (connection.in) {
+				WireNode neighbor = refreshWire(connection.wire);
+				power = Math.max(power, neighbor.virtualPower - powerStep);
+			}
+		}
+		
+		return power == wire.currentPower;
 	}
 	
 	private int getExternalPower(WireNode wire) {
+		powerChecks++;
+		
+		if (wire.sourceEpoch != sourceEpoch) {
+			findPowerSources(wire);
+		}
+		
+		// Most wires are surrounded by blocks that can never give
+		// them power.
+		if (wire.sourceDirs == 0) {
+			sourcelessPowerChecks++;
+			return minPower;
+		}
+		
 		int power = minPower;
 		
 		for (int iDir = 0; iDir < Directions.ALL.length; iDir++) {
+			if ((wire.sourceDirs & (1 << iDir)) == 0) {
+				continue;
+			}
+			
 			Node neighbor = getNeighbor(wire, iDir);
 			
 			if (neighbor.isWire()) {
@@ -687,26 +2272,103 @@ public class WireHandler {
 		return power;
 	}
 	
+	/**
+	 * Find the directions in which the given wire has neighbors that
+	 * could give it power: redstone components, and conductors next
+	 * to redstone components. Which blocks are redstone components
+	 * or conductors only changes when blocks are placed or broken,
+	 * so the result is kept until a block around the wire changes.
+	 */
+	private void findPowerSources(WireNode wire) {
+		int dirs = 0;
+		
+		for (int iDir = 0; iDir < Directions.ALL.length; iDir++) {
+			Node neighbor = getNeighbor(wire, iDir);
+			
+			if (neighbor.isWire()) {
+				continue;
+			}
+			
+			if (neighbor.isRedstoneComponent() || (neighbor.isConductor() && hasRedstoneAround(neighbor, Directions.iOpposite(iDir)))) {
+				dirs |= (1 << iDir);
+			}
+		}
+		
+		wire.sourceDirs = dirs;
+		wire.sourceEpoch = sourceEpoch;
+	}
+	
+	private boolean hasRedstoneAround(Node node, int except) {
+		for (int iDir : Directions.EXCEPT[except]) {
+			if (getNeighbor(node, iDir).isRedstoneComponent()) {
+				return true;
+			}
+		}
+		
+		return false;
+	}
+	
+	/**
+	 * The number of times a wire had no neighbors that could give
+	 * it power, so no power needed to be looked up.
+	 */
+	public long getSourcelessPowerChecks() {
+		return sourcelessPowerChecks;
+	}
+	
 	/**
 	 * Determine the strong power the given node receives from
 	 * neighboring redstone components.
 	 */
 	private int getStrongPowerTo(Node node, int except) {
+		// A conductor is often next to several wires of a network,
+		// so the power it receives is only looked up once during
+		// each update.
+		if (node.strongPowerGeneration != generation) {
+			findStrongPower(node);
+		}
+		
+		return ((node.strongPowerDirs & ~(1 << except)) != 0) ? node.strongPower : node.otherStrongPower;
+	}
+	
+	/**
+	 * Look up the strong power the given node receives from each
+	 * direction, and remember the highest power and the directions
+	 * it comes from, as well as the highest power from any other
+	 * direction. Together these give the strong power the node
+	 * receives from all directions except any one.
+	 */
+	private void findStrongPower(Node node) {
 		int power = minPower;
+		int dirs = 0;
+		int otherPower = minPower;
 		
-		for (int iDir : Directions.EXCEPT[except]) {
+		for (int iDir = 0; iDir < Directions.ALL.length; iDir++) {
 			Node neighbor = getNeighbor(node, iDir);
 			
-			if (neighbor.isRedstoneComponent()) {
-				power = Math.max(power, world.getStrongPowerFrom(neighbor.pos, neighbor.state, Directions.ALL[iDir]));
-				
-				if (power >= maxPower) {
-					return maxPower;
+			if (!neighbor.isRedstoneComponent()) {
+				continue;
+			}
+			
+			int strongPower = world.getStrongPowerFrom(neighbor.pos, neighbor.state, Directions.ALL[iDir]);
+			
+			if (strongPower > power) {
+				otherPower = power;
+				power = strongPower;
+				dirs = (1 << iDir);
+			} else if (strongPower == power) {
+				if (power > minPower) {
+					dirs |= (1 << iDir);
 				}
+			} else if (strongPower > otherPower) {
+				otherPower = strongPower;
 			}
 		}
 		
-		return power;
+		node.strongPowerGeneration = generation;
+		node.strongPower = power;
+		node.strongPowerDirs = dirs;
+		node.otherStrongPower = otherPower;
 	}
 	
 	/**
@@ -750,7 +2412,7 @@ public class WireHandler {
 				continue;
 			}
 			
-			WireNode neighbor = connection.wire;
+			WireNode neighbor = refreshWire(connection.wire);
 			
 			if (!ignoreNetwork || !neighbor.inNetwork) {
 				int power = Math.max(minPower, neighbor.virtualPower - powerStep);
@@ -770,8 +2432,7 @@ public class WireHandler {
 			updatePower();
 		}
 		if (!updatingPower) {
-			nodeCount = 0;
-			nodes.clear();
+			evictNodes();
 		}
 	}
 	
@@ -808,50 +2469,324 @@ public class WireHandler {
 	 * blocks, then queue power changes for connected wires.
 	 */
 	private void updatePower() {
+		// Updates where power is removed are timed, so the regular
+		// and decremental algorithms can be compared. Updates of
+		// single wires are timed to keep track of their overhead.
+		boolean powerOff = !updatingPower && isPowerOff();
+		boolean single = !updatingPower && rootCount == 1;
+		long startTime = (powerOff || single) ? System.nanoTime() : 0L;
+		
 		// The profiler keeps track of how long various parts of the
 		// algorithm take. It is only here for debugging purposes,
 		// and is commented out in production.
 //		Profiler profiler = AlternateCurrentMod.createProfiler();
 //		profiler.start();
 		
-		// Build a network of wires that need power changes. This 
-		// includes the roots as well as any wires that will be
-		// affected by power changes to those roots.
-//		profiler.push("build network");
-		buildNetwork();
+		// Build a network of wires that need power changes. This 
+		// includes the roots as well as any wires that will be
+		// affected by power changes to those roots.
+//		profiler.push("build network");
+		buildNetwork();
+		
+		// Networks driven by clocks tend to go through the same power
+		// changes over and over. If this network has been updated in
+		// the exact same situation before, the power changes from
+		// back then can be replayed.
+//		profiler.swap("find solution");
+		NetworkSolution solution = null;
+		boolean isolated = single && tryUpdateIsolated();
+		boolean solved = isolated;
+		
+		if (!solved) {
+			solution = findSolution();
+			solved = (solution != null);
+		}
+		
+		// Large, flat carpets of wire can be solved on a grid, which
+		// avoids most of the work of the power queue.
+//		profiler.swap("solve grid");
+		if (!solved && AlternateCurrentMod.solveGrids && !updatingPower) {
+			solved = trySolveGrid();
+		}
+		
+		// Find those wires in the network that receive redstone power
+		// from outside it. Remember that the power changes for those
+		// wires are already queued here!
+//		profiler.swap("find powered wires");
+		if (!solved) {
+			findPoweredWires();
+		}
+		
+		// Once the powered wires have been found, the network is
+		// no longer needed. In fact, it should be cleared before
+		// block and shape updates are emitted, in case a different
+		// network is updated that needs power changes.
+//		profiler.swap("clear " + rootCount + " roots and network of " + network.size());
+		rootCount = 0;
+		network.clear();
+		
+		// Carry out the power changes and emit shape and block updates.
+//		profiler.swap("let power flow");
+		try {
+			carryOutPowerChanges(solved);
+		} finally {
+//			profiler.pop();
+//			profiler.end();
+		}
+		
+		if (powerOff || isolated) {
+			long time = System.nanoTime() - startTime;
+			
+			if (powerOff) {
+				powerOffUpdates++;
+				powerOffTime += time;
+			}
+			if (isolated) {
+				isolatedUpdates++;
+				isolatedTime += time;
+			}
+		}
+	}
+	
+	/**
+	 * A wire that is not connected to any other wires simply takes
+	 * on the power it receives from non-wire components. This is by
+	 * far the most common kind of update, and its power change can
+	 * be carried out right away, without going through the power
+	 * queue or looking for a stored solution.
+	 * 
+	 * @return whether the network consists of a single wire with
+	 * no connections, the power change of which is ready to be
+	 * carried out.
+	 */
+	private boolean tryUpdateIsolated() {
+		if (network.size() != 1) {
+			return false;
+		}
+		
+		WireNode wire = network.get(0);
+		
+		if (wire.removed || wire.shouldBreak || wire.connections.count > 0) {
+			return false;
+		}
+		
+		wire.virtualPower = wire.externalPower;
+		wire.flowIn = 0;
+		
+		if (needsPowerChange(wire)) {
+			findPowerFlow(wire);
+			replayWires.add(wire);
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * The number of updates of single wires with no connections.
+	 */
+	public long getIsolatedUpdates() {
+		return isolatedUpdates;
+	}
+	
+	/**
+	 * The total time spent on updates of single wires with no
+	 * connections, in nanoseconds.
+	 */
+	public long getIsolatedTime() {
+		return isolatedTime;
+	}
+	
+	/**
+	 * Try to find the power changes of the network by solving it on a
+	 * grid. This only works for networks that lie flat and fill most
+	 * of the rectangle around them, and only if the power changes do
+	 * not spill over into wires outside the network.
+	 * 
+	 * <p>
+	 * The power changes are carried out in order of decreasing power
+	 * level, then in the order in which the wires were added to the
+	 * network.
+	 * 
+	 * @return whether the power changes were found and are ready to
+	 * be carried out.
+	 */
+	private boolean trySolveGrid() {
+		if (!grid.tryFit(network)) {
+			return false;
+		}
+		
+		for (int index = 0; index < network.size(); index++) {
+			WireNode wire = network.get(index);
+			
+			if (wire.removed || wire.shouldBreak) {
+				return false;
+			}
+			
+			int cell = grid.indexOf(wire.pos);
+			
+			// The grid starts out with the power each wire receives
+			// from outside the network.
+			findPower(wire, true);
+			grid.powers[cell] = wire.virtualPower;
+			
+			for (int c = 0; c < wire.connections.count; c++) {
+				WireConnection connection = wire.connections.all[c];
+				
+				if (!connection.in) {
+					continue;
+				}
+				
+				WireNode neighbor = refreshWire(connection.wire);
+				
+				if (!neighbor.inNetwork) {
+					continue;
+				}
+				if (grid.indexOf(neighbor.pos) != grid.neighbor(cell, connection.iDir)) {
+					return false;
+				}
+				
+				grid.connect(cell, connection.iDir, powerStep);
+			}
+		}
+		
+		grid.findPowers((maxPower - minPower) / powerStep + 1);
+		
+		// If a wire outside the network would receive more power than
+		// it has, it needs a power change as well, which the grid does
+		// not know about.
+		for (int index = 0; index < network.size(); index++) {
+			WireNode wire = network.get(index);
+			int nextPower = Math.max(minPower, grid.powers[grid.indexOf(wire.pos)] - powerStep);
+			
+			for (int c = 0; c < wire.connections.count; c++) {
+				WireConnection connection = wire.connections.all[c];
+				
+				if (!connection.out) {
+					continue;
+				}
+				
+				WireNode neighbor = refreshWire(connection.wire);
+				
+				if (!neighbor.inNetwork && !neighbor.removed && !neighbor.shouldBreak && nextPower > neighbor.virtualPower) {
+					return false;
+				}
+			}
+		}
+		
+		for (int index = 0; index < network.size(); index++) {
+			WireNode wire = network.get(index);
+			int cell = grid.indexOf(wire.pos);
+			int power = grid.powers[cell];
+			
+			// Power from wires outside the network still counts
+			// toward the flow if it matches the new power level.
+			if (power != wire.virtualPower) {
+				wire.flowIn = 0;
+			}
+			
+			wire.virtualPower = power;
+			wire.flowIn |= grid.findFlowIn(cell, powerStep);
+		}
+		
+		for (int power = maxPower; power >= minPower; power--) {
+			for (int index = 0; index < network.size(); index++) {
+				WireNode wire = network.get(index);
+				
+				if (wire.virtualPower != power || wire.currentPower == power) {
+					continue;
+				}
+				
+				findPowerFlow(wire);
+				replayWires.add(wire);
+			}
+		}
 		
-		// Find those wires in the network that receive redstone power
-		// from outside it. Remember that the power changes for those
-		// wires are already queued here!
-//		profiler.swap("find powered wires");
-		findPoweredWires();
+		gridSolves++;
 		
-		// Once the powered wires have been found, the network is
-		// no longer needed. In fact, it should be cleared before
-		// block and shape updates are emitted, in case a different
-		// network is updated that needs power changes.
-//		profiler.swap("clear " + rootCount + " roots and network of " + network.size());
-		rootCount = 0;
-		network.clear();
+		return true;
+	}
+	
+	/**
+	 * The number of network updates that were solved on a grid.
+	 */
+	public long getGridSolves() {
+		return gridSolves;
+	}
+	
+	/**
+	 * Check if all the roots of the network lose power.
+	 */
+	private boolean isPowerOff() {
+		for (int index = 0; index < rootCount; index++) {
+			WireNode wire = network.get(index);
+			
+			if (!wire.removed && !wire.shouldBreak && wire.virtualPower >= wire.currentPower) {
+				return false;
+			}
+		}
 		
-		// Carry out the power changes and emit shape and block updates.
-//		profiler.swap("let power flow");
+		return true;
+	}
+	
+	/**
+	 * The number of times the power a wire receives from non-wire
+	 * components was looked up.
+	 */
+	public long getPowerChecks() {
+		return powerChecks;
+	}
+	
+	/**
+	 * The number of times looking up the power a wire receives from
+	 * non-wire components was skipped by the decremental algorithm.
+	 */
+	public long getSkippedPowerChecks() {
+		return skippedPowerChecks;
+	}
+	
+	/**
+	 * The number of top-level updates in which all roots lost power.
+	 */
+	public long getPowerOffUpdates() {
+		return powerOffUpdates;
+	}
+	
+	/**
+	 * The total time spent on top-level updates in which all roots
+	 * lost power, in nanoseconds.
+	 */
+	public long getPowerOffTime() {
+		return powerOffTime;
+	}
+	
+	public void resetPowerOffStats() {
+		powerChecks = 0;
+		skippedPowerChecks = 0;
+		sourcelessPowerChecks = 0;
+		powerOffUpdates = 0;
+		powerOffTime = 0;
+	}
+	
+	private void carryOutPowerChanges(boolean replay) {
 		try {
-			letPowerFlow();
+			letPowerFlow(replay);
 		} catch (Throwable t) {
-			// If anything goes wrong while carrying out power changes,
-			// this value must be reset to 'false', or the wire handler
-			// will be locked out of carrying out power changes until
-			// the world is reloaded.
-			updatingPower = false;
-			
+			abortPowerChanges();
 			throw t;
-		} finally {
-//			profiler.pop();
-//			profiler.end();
 		}
 	}
 	
+	private void abortPowerChanges() {
+		// If anything goes wrong while carrying out power changes,
+		// this value must be reset to 'false', or the wire handler
+		// will be locked out of carrying out power changes until
+		// the world is reloaded.
+		updatingPower = false;
+		paused = false;
+		recording = false;
+		replayWires.clear();
+	}
+	
 	/**
 	 * Build up a network of wires that need power changes. This
 	 * includes the roots that were already added and any wires
@@ -876,12 +2811,23 @@ public class WireHandler {
 						continue;
 					}
 					
-					WireNode neighbor = connection.wire;
+					WireNode neighbor = refreshWire(connection.wire);
 					
 					if (neighbor.inNetwork) {
 						continue;
 					}
 					
+					// When power is removed, the network spreads through
+					// all the wires that lose support. Wires at the edge
+					// of that region that are held at their power level
+					// by other wires do not need power changes, so there
+					// is no need to look for power from non-wire
+					// components around them.
+					if (AlternateCurrentMod.decrementalUpdates && !neighbor.prepared && isHeldByWires(neighbor)) {
+						skippedPowerChecks++;
+						continue;
+					}
+					
 					prepareWire(neighbor);
 					findPower(neighbor, false);
 					
@@ -984,7 +2930,7 @@ public class WireHandler {
 					continue;
 				}
 				
-				WireNode connectedWire = connection.wire;
+				WireNode connectedWire = refreshWire(connection.wire);
 				
 				if (connectedWire.offerPower(nextPower, iDir)) {
 					queuePowerChange(connectedWire);
@@ -998,7 +2944,7 @@ public class WireHandler {
 	 * in the world, notifying neighbors of the power change, then
 	 * queueing power changes of neighboring wires.
 	 */
-	private void letPowerFlow() {
+	private void letPowerFlow(boolean replay) {
 		// If an instantaneous update chain causes updates to another
 		// network (or the same network in another place), new power
 		// changes will be integrated into the already ongoing power
@@ -1009,15 +2955,54 @@ public class WireHandler {
 		
 		updatingPower = true;
 		
+		if (replay) {
+			replayPowerChanges();
+		} else if (solutionKey != 0L) {
+			startRecording();
+		}
+		
+		startSlice();
+		flushPowerChanges(false);
+	}
+	
+	/**
+	 * Work through the queue of power changes. If time slicing is
+	 * enabled and the current slice runs out of time, the power
+	 * changes that are left stay in the queue until the next tick.
+	 * 
+	 * @param checkLoaded whether to skip wires in chunks that are
+	 * no longer loaded, which can happen to power changes that were
+	 * paused.
+	 */
+	private void flushPowerChanges(boolean checkLoaded) {
+		int count = 0;
+		
 		while (!powerChanges.isEmpty()) {
+			if ((++count % SLICE_CHECK_INTERVAL) == 0 && System.nanoTime() > sliceEnd) {
+				pausePowerChanges();
+				return;
+			}
+			
 			WireNode wire = powerChanges.poll();
 			
 			if (!needsPowerChange(wire)) {
 				continue;
 			}
+			// Loading the chunk again only to set a power level that
+			// is no longer current is not worth it.
+			if (checkLoaded && !world.isLoaded(wire.pos)) {
+				continue;
+			}
 			
 			findPowerFlow(wire);
 			
+			if (recording) {
+				recordPowerChange(wire);
+			}
+			if (wire.compiled != null) {
+				wire.compiled.synced = false;
+			}
+			
 			if (wire.updateState()) {
 				// If the wire was removed, shape updates have already
 				// been emitted.
@@ -1031,9 +3016,306 @@ public class WireHandler {
 			transmitPower(wire);
 		}
 		
+		if (recording) {
+			stopRecording();
+		}
+		
 		updatingPower = false;
 	}
 	
+	private void startSlice() {
+		int budget = AlternateCurrentMod.sliceBudget;
+		sliceEnd = (budget > 0) ? System.nanoTime() + 1000L * budget : Long.MAX_VALUE;
+	}
+	
+	/**
+	 * Pause the ongoing power changes until the next tick. The wire
+	 * handler keeps acting as if it is in the middle of carrying out
+	 * power changes, so any updates that happen in the meantime are
+	 * integrated into the paused power queue, just like updates that
+	 * happen during ongoing power changes.
+	 */
+	private void pausePowerChanges() {
+		paused = true;
+		pausedUpdates++;
+		
+		// The power changes of other updates will be mixed in, so
+		// they cannot be replayed on their own.
+		recordingValid = false;
+	}
+	
+	/**
+	 * Continue power changes that were paused because they ran out
+	 * of time. This method is called at the start of each tick.
+	 */
+	public void resumePowerChanges() {
+		if (!paused) {
+			return;
+		}
+		
+		resumedSlices++;
+		startSlice();
+		continuePowerChanges();
+	}
+	
+	/**
+	 * Carry out any paused power changes right away, regardless of
+	 * the time budget. This is called when Alternate Current is
+	 * turned off, so that the wire handler is not left in the middle
+	 * of carrying out power changes.
+	 */
+	public void finishPowerChanges() {
+		if (!paused) {
+			return;
+		}
+		
+		sliceEnd = Long.MAX_VALUE;
+		continuePowerChanges();
+	}
+	
+	private void continuePowerChanges() {
+		paused = false;
+		
+		try {
+			flushPowerChanges(true);
+		} catch (Throwable t) {
+			abortPowerChanges();
+			throw t;
+		}
+		
+		if (!updatingPower) {
+			evictNodes();
+		}
+	}
+	
+	/**
+	 * The number of times power changes ran out of time and were
+	 * paused until the next tick.
+	 */
+	public long getPausedUpdates() {
+		return pausedUpdates;
+	}
+	
+	/**
+	 * The number of ticks in which paused power changes were resumed.
+	 */
+	public long getResumedSlices() {
+		return resumedSlices;
+	}
+	
+	/**
+	 * Look for a stored solution for the current network. A solution
+	 * is only used if the network consists of the same wires, in the
+	 * same order, with the same connections, and if each of those
+	 * wires receives the same power from outside the network as when
+	 * the solution was recorded.
+	 * 
+	 * @return the solution, or {@code null} if none was found and
+	 * the power changes must be worked out.
+	 */
+	private NetworkSolution findSolution() {
+		// Nested updates are integrated into an ongoing power change
+		// and so cannot be replayed on their own.
+		if (updatingPower) {
+			return null;
+		}
+		
+		solutionKey = 0L;
+		
+		// Small networks are cheap to solve, and storing their
+		// solutions would only push out more useful ones.
+		if (network.size() < MIN_SOLUTION_SIZE || network.size() > MAX_SOLUTION_SIZE) {
+			return null;
+		}
+		
+		long key = fingerprintNetwork();
+		
+		if (key == 0L) {
+			return null;
+		}
+		
+		NetworkSolution solution = solutions.getAndMoveToLast(key);
+		
+		if (solution == null || !solution.matches(networkHashes) || !prepareReplay(solution)) {
+			solutionKey = key;
+			return null;
+		}
+		
+		// Wires in the network that do not change power keep their
+		// current power levels.
+		for (int index = 0; index < network.size(); index++) {
+			WireNode wire = network.get(index);
+			wire.virtualPower = wire.currentPower;
+		}
+		
+		// Set the new power levels up front, so that any updates that
+		// happen during the replay see the network as it will be.
+		for (int index = 0; index < replayWires.size(); index++) {
+			WireNode wire = replayWires.get(index);
+			
+			wire.virtualPower = solution.newPowers[index];
+			wire.flowOut = solution.flows[index];
+		}
+		
+		return solution;
+	}
+	
+	/**
+	 * Compute a fingerprint of the network, including its topology,
+	 * the power levels of its wires and the power those wires receive
+	 * from outside the network.
+	 * 
+	 * @return the fingerprint, or 0 if the network cannot be
+	 * memoized.
+	 */
+	private long fingerprintNetwork() {
+		long key = rootCount;
+		networkHashes.clear();
+		
+		for (int index = 0; index < network.size(); index++) {
+			WireNode wire = network.get(index);
+			
+			// Wires that break change the topology of the network.
+			if (wire.removed || wire.shouldBreak) {
+				return 0L;
+			}
+			
+			long hash = hashWire(wire);
+			networkHashes.add(hash);
+			
+			key = HashCommon.mix(key + hash);
+		}
+		
+		return (key == 0L) ? 1L : key;
+	}
+	
+	/**
+	 * Hash everything about the given wire that can influence the
+	 * power changes in the network: its power levels, its external
+	 * power, its connections, and the power of connected wires
+	 * outside the network.
+	 */
+	private long hashWire(WireNode wire) {
+		long hash = wire.pos.asLong();
+		hash = 31 * hash + wire.currentPower;
+		hash = 31 * hash + wire.externalPower;
+		hash = 31 * hash + wire.flowOut;
+		hash = 31 * hash + wire.connections.flow;
+		
+		for (int c = 0; c < wire.connections.count; c++) {
+			WireConnection connection = wire.connections.all[c];
+			WireNode neighbor = refreshWire(connection.wire);
+			
+			hash = HashCommon.mix(hash ^ neighbor.pos.asLong());
+			hash = 31 * hash + connection.iDir;
+			hash = 31 * hash + (connection.in ? 1 : 0);
+			hash = 31 * hash + (connection.out ? 1 : 0);
+			
+			if (neighbor.inNetwork) {
+				hash = 31 * hash + 1;
+			} else {
+				hash = 31 * hash + neighbor.virtualPower;
+			}
+		}
+		
+		return hash;
+	}
+	
+	/**
+	 * Look up the wires whose power changes are stored in the given
+	 * solution, and check that they are still at the power levels
+	 * the solution starts from.
+	 */
+	private boolean prepareReplay(NetworkSolution solution) {
+		replayWires.clear();
+		
+		for (int index = 0; index < solution.changedWires.length; index++) {
+			Node node = getOrAddNode(BlockPos.fromLong(solution.changedWires[index]));
+			
+			if (!node.isWire() || node.asWire().currentPower != solution.oldPowers[index]) {
+				replayWires.clear();
+				return false;
+			}
+			
+			replayWires.add(node.asWire());
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * Carry out power changes that were worked out in advance, either
+	 * from a stored solution or from a compiled network. If another
+	 * update happens in the middle of the replay, the power changes
+	 * that are left are handed to the power queue, so that they are
+	 * integrated with the power changes of that update.
+	 */
+	private void replayPowerChanges() {
+		long replayStart = generation;
+		
+		for (int index = 0; index < replayWires.size(); index++) {
+			WireNode wire = replayWires.get(index);
+			
+			if (generation != replayStart) {
+				// The power queue finds the flow of each wire from
+				// its incoming flow, which was left over from building
+				// the network. It is set to match the flow that was
+				// worked out in advance, so the wire emits its updates
+				// in the same order as it would in the replay.
+				wire.flowIn = 1 << wire.flowOut;
+				powerChanges.add(wire);
+				continue;
+			}
+			
+			if (wire.compiled != null) {
+				wire.compiled.synced = false;
+			}
+			if (wire.updateState()) {
+				updateNeighborShapes(wire);
+				updateNeighborBlocks(wire);
+			}
+		}
+		
+		replayWires.clear();
+	}
+	
+	private void startRecording() {
+		recording = true;
+		recordingValid = true;
+		recordingStart = generation;
+		recordedWires.clear();
+		recordedChanges.clear();
+	}
+	
+	private void recordPowerChange(WireNode wire) {
+		// The replay changes the power of each wire only once.
+		if (wire.removed || wire.shouldBreak || !recordedWires.add(wire.pos.asLong())) {
+			recordingValid = false;
+		}
+		
+		recordedChanges.add(wire.currentPower);
+		recordedChanges.add(wire.virtualPower);
+		recordedChanges.add(wire.flowOut);
+	}
+	
+	private void stopRecording() {
+		recording = false;
+		
+		// If other updates happened while power changes were carried
+		// out, the recorded power changes include the effects of
+		// those updates and cannot be replayed on their own.
+		if (recordingValid && generation == recordingStart) {
+			solutions.putAndMoveToLast(solutionKey, new NetworkSolution(networkHashes, recordedWires, recordedChanges));
+			
+			if (solutions.size() > MAX_SOLUTIONS) {
+				solutions.removeFirst();
+			}
+		}
+		
+		recordedWires.clear();
+		recordedChanges.clear();
+	}
+	
 	/**
 	 * Emit shape updates around the given wire.
 	 */
@@ -1151,6 +3433,109 @@ public class WireHandler {
 		}
 	}
 	
+	/**
+	 * Keeps track of how often the neighbor checks in
+	 * {@link #findRoots} find extra roots in a region of the world,
+	 * and decides whether these checks are worth doing there.
+	 */
+	private static class ScanRegion {
+		
+		private int scans;
+		private int hits;
+		/** The number of updates since the checks were last done. */
+		private int skipped;
+		private boolean enabled = true;
+		
+		private boolean shouldScan() {
+			if (enabled) {
+				return true;
+			}
+			
+			// Probe disabled regions every so often, in case the
+			// contraptions in them have changed.
+			if (++skipped >= SCAN_PROBE_INTERVAL) {
+				skipped = 0;
+				return true;
+			}
+			
+			return false;
+		}
+		
+		private void recordScan(boolean hit) {
+			scans++;
+			
+			if (hit) {
+				hits++;
+			}
+			
+			// Halve the counts every so often, so that recent
+			// results weigh more than old ones.
+			if (scans >= SCAN_SAMPLE_LIMIT) {
+				scans >>= 1;
+				hits >>= 1;
+			}
+			if (scans >= SCAN_MIN_SAMPLES) {
+				enabled = hits * SCAN_MIN_HIT_RATIO >= scans;
+			}
+		}
+	}
+	
+	/**
+	 * The power changes that were carried out in a network, along with
+	 * the information needed to verify that the network is in the same
+	 * situation when these power changes are replayed.
+	 */
+	private static class NetworkSolution {
+		
+		private final long[] wireHashes;
+		private final long[] changedWires;
+		private final int[] oldPowers;
+		private final int[] newPowers;
+		private final int[] flows;
+		
+		private NetworkSolution(LongList wireHashes, LongLinkedOpenHashSet changedWires, IntList changes) {
+			this.wireHashes = wireHashes.toLongArray();
+			this.changedWires = changedWires.toLongArray();
+			this.oldPowers = new int[this.changedWires.length];
+			this.newPowers = new int[this.changedWires.length];
+			this.flows = new int[this.changedWires.length];
+			
+			for (int index = 0; index < this.changedWires.length; index++) {
+				this.oldPowers[index] = changes.getInt(3 * index);
+				this.newPowers[index] = changes.getInt(3 * index + 1);
+				this.flows[index] = changes.getInt(3 * index + 2);
+			}
+		}
+		
+		private boolean matches(LongList hashes) {
+			if (wireHashes.length != hashes.size()) {
+				return false;
+			}
+			
+			for (int index = 0; index < wireHashes.length; index++) {
+				if (wireHashes[index] != hashes.getLong(index)) {
+					return false;
+				}
+			}
+			
+			return true;
+		}
+	}
+	
+	private static class EmitterUpdate {
+		
+		private final BlockPos pos;
+		private final Block block;
+		
+		/** True once the wires around the component have been updated. */
+		private boolean handled;
+		
+		private EmitterUpdate(BlockPos pos, Block block) {
+			this.pos = pos;
+			this.block = block;
+		}
+	}
+	
 	@FunctionalInterface
 	public interface NodeProvider {
 		
@@ -2,6 +2,7 @@ package alternate.current.redstone;
 
 import net.minecraft.block.BlockState;
 import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.chunk.ChunkSection;
 
 /**
  * A WireNode is a Node that represents a redstone wire in the world.
@@ -31,6 +32,28 @@ public class WireNode extends Node {
 	public int flowIn;
 	/** The direction of power flow, based on the incoming flow. */
 	public int flowOut;
+	/**
+	 * The chunk sections around this wire and their modification
+	 * counts at the time this wire was last found to be stable.
+	 */
+	public ChunkSection[] stableSections;
+	public int[] stableModCounts;
+	public int stableSectionCount;
+	/** The compiled form of the network this wire is part of, if any. */
+	public CompiledNetwork compiled;
+	/**
+	 * The directions in which this wire has a redstone component, or
+	 * a conductor next to a redstone component, that could give it
+	 * power.
+	 */
+	public int sourceDirs;
+	/** The epoch in which the source directions were found, or -1 if they must be found again. */
+	public long sourceEpoch = -1L;
+	/** The horizontal directions this wire points in, as found by {@link WireBlock#findConnectionMask}. */
+	public int connectionMask;
+	/** The epoch in which the connection mask was found, or -1 if it must be found again. */
+	public long connectionEpoch = -1L;
+	
 	public boolean removed;
 	public boolean shouldBreak;
 	public boolean prepared;
@@ -1,6 +1,9 @@
 package alternate.current.redstone;
 
 import alternate.current.interfaces.mixin.IBlock;
+import alternate.current.interfaces.mixin.IBlockState;
+import alternate.current.interfaces.mixin.IServerWorld;
+import alternate.current.redstone.WireHandler.Directions;
 
 import net.minecraft.block.Block;
 import net.minecraft.block.BlockState;
@@ -18,6 +21,9 @@ public class WorldAccess {
 	private final ServerWorld world;
 	private final WireHandler wireHandler;
 	
+	private long classifiedLookups;
+	private long unclassifiedLookups;
+	
 	public WorldAccess(WireBlock wireBlock, ServerWorld world) {
 		this.wireBlock = wireBlock;
 		this.world = world;
@@ -28,6 +34,18 @@ public class WorldAccess {
 		return wireHandler;
 	}
 	
+	public ServerWorld getWorld() {
+		return world;
+	}
+	
+	/**
+	 * Check whether the chunk at the given position is loaded, without
+	 * loading it.
+	 */
+	public boolean isLoaded(BlockPos pos) {
+		return world.isChunkLoaded(pos.getX() >> 4, pos.getZ() >> 4);
+	}
+	
 	/**
 	 * A slightly optimized version of World.getBlockState.
 	 */
@@ -52,6 +70,47 @@ public class WorldAccess {
 		return section.getBlockState(x & 15, y & 15, z & 15);
 	}
 	
+	/**
+	 * Read the block states at the given offsets from the given
+	 * position. Consecutive positions usually lie in the same chunk
+	 * section, so chunks and sections are only looked up again when
+	 * the position moves into a different one.
+	 * 
+	 * @param offsets the x, y and z offsets of each position, one
+	 * after the other.
+	 */
+	public void getBlockStates(BlockPos pos, int[] offsets, BlockState[] states) {
+		Chunk chunk = null;
+		ChunkSection section = null;
+		int chunkX = 0;
+		int chunkZ = 0;
+		int index = 0;
+		
+		for (int i = 0; i < states.length; i++) {
+			int x = pos.getX() + offsets[3 * i];
+			int y = pos.getY() + offsets[3 * i + 1];
+			int z = pos.getZ() + offsets[3 * i + 2];
+			
+			if (y < world.getBottomY() || y >= world.getTopY()) {
+				states[i] = Blocks.VOID_AIR.getDefaultState();
+				continue;
+			}
+			
+			if (chunk == null || (x >> 4) != chunkX || (z >> 4) != chunkZ) {
+				chunkX = x >> 4;
+				chunkZ = z >> 4;
+				chunk = world.getChunk(chunkX, chunkZ, ChunkStatus.FULL, true);
+				index = world.getSectionIndex(y);
+				section = chunk.getSectionArray()[index];
+			} else if (world.getSectionIndex(y) != index) {
+				index = world.getSectionIndex(y);
+				section = chunk.getSectionArray()[index];
+			}
+			
+			states[i] = (section == null) ? Blocks.AIR.getDefaultState() : section.getBlockState(x & 15, y & 15, z & 15);
+		}
+	}
+	
 	/**
 	 * An optimized version of World.setBlockState. Since this method is
 	 * only used to update redstone wire block states, lighting checks,
@@ -89,10 +148,51 @@ public class WorldAccess {
 		world.getChunkManager().markForUpdate(pos);
 		// mark the chunk for saving
 		chunk.setShouldSave(true);
+		// notify wire handlers of the BlockState change, since
+		// this bypasses the usual path through the chunk
+		((IServerWorld)world).onBlockStateChanged(pos, prevState, state);
 		
 		return true;
 	}
 	
+	/**
+	 * Collect the chunk sections that overlap the cube with the given
+	 * radius around the given position. Sections that lie outside the
+	 * world are skipped.
+	 * 
+	 * @return the number of sections that were collected.
+	 */
+	public int getSections(BlockPos pos, int radius, ChunkSection[] sections) {
+		int minY = Math.max(pos.getY() - radius, world.getBottomY());
+		int maxY = Math.min(pos.getY() + radius, world.getTopY() - 1);
+		
+		if (minY > maxY) {
+			return 0;
+		}
+		
+		int minChunkX = (pos.getX() - radius) >> 4;
+		int maxChunkX = (pos.getX() + radius) >> 4;
+		int minChunkZ = (pos.getZ() - radius) >> 4;
+		int maxChunkZ = (pos.getZ() + radius) >> 4;
+		int minIndex = world.getSectionIndex(minY);
+		int maxIndex = world.getSectionIndex(maxY);
+		
+		int count = 0;
+		
+		for (int chunkX = minChunkX; chunkX <= maxChunkX; chunkX++) {
+			for (int chunkZ = minChunkZ; chunkZ <= maxChunkZ; chunkZ++) {
+				Chunk chunk = world.getChunk(chunkX, chunkZ, ChunkStatus.FULL, true);
+				ChunkSection[] sectionArray = chunk.getSectionArray();
+				
+				for (int index = minIndex; index <= maxIndex; index++) {
+					sections[count++] = sectionArray[index];
+				}
+			}
+		}
+		
+		return count;
+	}
+	
 	public boolean breakBlock(BlockPos pos, BlockState state) {
 		Block.dropStacks(state, world, pos);
 		return world.setBlockState(pos, Blocks.AIR.getDefaultState(), Block.NOTIFY_LISTENERS);
@@ -111,6 +211,41 @@ public class WorldAccess {
 		state.neighborUpdate(world, pos, fromBlock, fromPos, false);
 	}
 	
+	/**
+	 * Check if the given block state emits redstone power. The answer
+	 * only depends on the block state, so it is stored on the state
+	 * the first time it is looked up.
+	 */
+	public boolean isRedstoneComponent(BlockState state) {
+		IBlockState classified = (IBlockState)state;
+		int flags = classified.getClassification();
+		
+		if (flags == 0) {
+			flags = classified.classify();
+			unclassifiedLookups++;
+		} else {
+			classifiedLookups++;
+		}
+		
+		return (flags & IBlockState.EMITTER) != 0;
+	}
+	
+	/**
+	 * The number of block state classifications that were found on
+	 * the block state.
+	 */
+	public long getClassifiedLookups() {
+		return classifiedLookups;
+	}
+	
+	/**
+	 * The number of block states that had to be classified when they
+	 * were looked up.
+	 */
+	public long getUnclassifiedLookups() {
+		return unclassifiedLookups;
+	}
+	
 	public boolean isConductor(BlockPos pos) {
 		return getBlockState(pos).isSolidBlock(world, pos);
 	}
@@ -119,12 +254,40 @@ public class WorldAccess {
 		return state.isSolidBlock(world, pos);
 	}
 	
+	/**
+	 * Which directions a redstone component emits power in usually
+	 * only depends on its block state, and is looked up from the
+	 * block state. Only blocks that need more than that are asked
+	 * directly.
+	 */
 	public boolean emitsWeakPowerTo(BlockPos pos, BlockState state, Direction dir) {
-		return ((IBlock)state.getBlock()).emitsWeakPowerTo(world, pos, state, dir);
+		int emission = ((IBlockState)state).getPowerEmission();
+		
+		if (emission < 0) {
+			return ((IBlock)state.getBlock()).emitsWeakPowerTo(world, pos, state, dir);
+		}
+		
+		return (emission & (1 << dir.getId())) != 0;
 	}
 	
 	public boolean emitsStrongPowerTo(BlockPos pos, BlockState state, Direction dir) {
-		return ((IBlock)state.getBlock()).emitsStrongPowerTo(world, pos, state, dir);
+		int emission = ((IBlockState)state).getPowerEmission();
+		
+		if (emission < 0) {
+			return ((IBlock)state.getBlock()).emitsStrongPowerTo(world, pos, state, dir);
+		}
+		
+		return (emission & (1 << (6 + dir.getId()))) != 0;
+	}
+	
+	public int getPowerFanOut(BlockPos pos, BlockState state) {
+		int emission = ((IBlockState)state).getPowerEmission();
+		
+		if (emission < 0) {
+			return ((IBlock)state.getBlock()).getPowerFanOut(world, pos, state);
+		}
+		
+		return (emission >> 12) & Directions.ALL_MASK;
 	}
 	
 	public int getWeakPowerFrom(BlockPos pos, BlockState state, Direction dir) {